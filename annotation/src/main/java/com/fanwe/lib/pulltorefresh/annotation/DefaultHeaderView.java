@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定全局默认的HeaderView，代替字符串资源lib_ptr_header_class<br>
+ * 被注解的类必须继承SDPullToRefreshLoadingView，不能是抽象类，并且有public的(Context)构造方法；
+ * 编译的时候会生成直接调用构造方法的工厂类com.fanwe.lib.pulltorefresh.generated.GeneratedLoadingViewFactory，
+ * LoadingViewRegistry第一次使用时通过类名加载一次，之后创建加载view不需要反射；库的混淆规则已经保留了这个类<br>
+ * 只能在application模块中使用，并且只能注解一个类
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface DefaultHeaderView
+{
+}
@@ -8,14 +8,18 @@ import android.util.AttributeSet;
 
 import com.fanwe.lib.pulltorefresh.ISDPullToRefreshView;
 import com.fanwe.lib.pulltorefresh.SDPullToRefreshView;
+import com.fanwe.lib.pulltorefresh.annotation.DefaultFooterView;
+import com.fanwe.lib.pulltorefresh.annotation.DefaultHeaderView;
 import com.fanwe.lib.pulltorefresh.loadingview.SimpleImageLoadingView;
 import com.fanwe.library.utils.SDViewUtil;
 import com.sd.demo.pulltorefresh.R;
 
 /**
  * Created by Administrator on 2017/6/30.
+ * 全局默认的HeaderView和FooterView，没有单独设置加载view的页面都使用这个
  */
-
+@DefaultHeaderView
+@DefaultFooterView
 public class CustomPullToRefreshLoadingView extends SimpleImageLoadingView
 {
     public CustomPullToRefreshLoadingView(@NonNull Context context)
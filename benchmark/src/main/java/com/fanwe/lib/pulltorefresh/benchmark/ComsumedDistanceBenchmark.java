@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.benchmark;
+
+import com.fanwe.lib.pulltorefresh.core.ComsumedDistance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 计算拖动阻尼后view移动的距离，每次调用对应一次拖动
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComsumedDistanceBenchmark
+{
+    private static final int SIZE = 1024;
+
+    @Param({"0.5", "1"})
+    public float comsumeScrollPercent;
+
+    private final ComsumedDistance mComsumedDistance = new ComsumedDistance();
+    private final float[] mRawDy = new float[SIZE];
+    private int mIndex;
+
+    @Setup
+    public void setup()
+    {
+        mComsumedDistance.setComsumeScrollPercent(comsumeScrollPercent);
+
+        final Random random = new Random(20170929);
+        for (int i = 0; i < SIZE; i++)
+        {
+            // 高刷新率屏幕上一个MOVE事件的移动距离通常只有几个像素
+            mRawDy[i] = random.nextFloat() * 8 - 2;
+        }
+    }
+
+    @Benchmark
+    public int getAppliedDistance()
+    {
+        mIndex = (mIndex + 1) & (SIZE - 1);
+        return mComsumedDistance.getAppliedDistance(mRawDy[mIndex]);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.benchmark;
+
+import com.fanwe.lib.pulltorefresh.core.PullLayout;
+import com.fanwe.lib.pulltorefresh.core.PullState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 根据拖动状态计算child布局位置，每次调用对应一次onLayout
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PullLayoutBenchmark
+{
+    private static final int SIZE = 1024;
+
+    private static final int HEADER_HEIGHT = 150;
+    private static final int FOOTER_HEIGHT = 150;
+    private static final int HEIGHT = 1920;
+
+    private final int[] mState = new int[SIZE];
+    private final int[] mDirection = new int[SIZE];
+    private final int[] mOffset = new int[SIZE];
+    private final boolean[] mIsDragIdle = new boolean[SIZE];
+    private int mIndex;
+
+    @Setup
+    public void setup()
+    {
+        final Random random = new Random(20170929);
+        for (int i = 0; i < SIZE; i++)
+        {
+            mState[i] = random.nextInt(PullState.STATE_REFRESH_FINISH + 1);
+            mDirection[i] = random.nextInt(PullState.DIRECTION_FROM_FOOTER + 1);
+            mOffset[i] = random.nextInt(HEADER_HEIGHT * 2);
+            mIsDragIdle[i] = random.nextBoolean();
+        }
+    }
+
+    @Benchmark
+    public void layoutChildren(Blackhole blackhole)
+    {
+        mIndex = (mIndex + 1) & (SIZE - 1);
+        final int i = mIndex;
+
+        final int topHeaderReset = -HEADER_HEIGHT;
+        final int topFooterReset = HEIGHT;
+
+        blackhole.consume(PullLayout.getTopLayoutHeaderView(topHeaderReset, topHeaderReset + mOffset[i], HEADER_HEIGHT,
+                mState[i], mDirection[i], mIsDragIdle[i]));
+        blackhole.consume(PullLayout.getTopLayoutRefreshView(0, mOffset[i], HEADER_HEIGHT, FOOTER_HEIGHT,
+                mState[i], mDirection[i], mIsDragIdle[i], false));
+        blackhole.consume(PullLayout.getTopLayoutFooterView(topFooterReset, topFooterReset - mOffset[i], FOOTER_HEIGHT,
+                mState[i], mDirection[i], mIsDragIdle[i]));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.benchmark;
+
+import com.fanwe.lib.pulltorefresh.core.ManualScheduler;
+import com.fanwe.lib.pulltorefresh.core.PullState;
+import com.fanwe.lib.pulltorefresh.core.PullStateMachine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 状态机模拟一次完整的手势：按下，拖动，松手刷新，显示刷新结果，收起
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PullStateMachineBenchmark
+{
+    private static final int REFRESH_HEIGHT = 150;
+    private static final int MOVE_COUNT = 60;
+    private static final int MOVE_STEP = 4;
+
+    private ManualScheduler mScheduler;
+    private PullStateMachine mStateMachine;
+    private int mRefreshCount;
+
+    @Setup
+    public void setup()
+    {
+        mScheduler = new ManualScheduler();
+        mStateMachine = new PullStateMachine(mScheduler, mScheduler, new PullStateMachine.Callback()
+        {
+            @Override
+            public void onStateChanged(int newState, int oldState)
+            {
+            }
+
+            @Override
+            public void onDirectionChanged(int direction)
+            {
+            }
+
+            @Override
+            public void onRefresh(int direction)
+            {
+                mRefreshCount++;
+            }
+
+            @Override
+            public void onShowRefreshResultFinish()
+            {
+                if (mStateMachine.stopRefreshing())
+                {
+                    mStateMachine.onIdle();
+                }
+            }
+        });
+        mStateMachine.setDurationShowRefreshResult(600);
+    }
+
+    /**
+     * 拖动到可以刷新的距离，松手刷新
+     */
+    @Benchmark
+    public int pullToRefresh()
+    {
+        final PullStateMachine machine = mStateMachine;
+        for (int i = 1; i <= MOVE_COUNT; i++)
+        {
+            final int distance = i * MOVE_STEP;
+            machine.setDirectionByMove(distance);
+            machine.updateStateByMoveDistance(distance >= REFRESH_HEIGHT);
+        }
+        machine.onRelease(false);
+        machine.onIdle();
+
+        machine.stopRefreshingWithResult(true);
+        mScheduler.advance(600);
+        return machine.getState() + mRefreshCount;
+    }
+
+    /**
+     * 拖动距离不够，松手收起
+     */
+    @Benchmark
+    public int pullAndCancel()
+    {
+        final PullStateMachine machine = mStateMachine;
+        for (int i = 1; i <= MOVE_COUNT / 2; i++)
+        {
+            final int distance = -i * MOVE_STEP;
+            machine.setDirectionByMove(distance);
+            machine.updateStateByMoveDistance(-distance >= REFRESH_HEIGHT * 2);
+        }
+        machine.onRelease(false);
+        machine.onIdle();
+        return machine.getState() == PullState.STATE_RESET ? 0 : 1;
+    }
+}
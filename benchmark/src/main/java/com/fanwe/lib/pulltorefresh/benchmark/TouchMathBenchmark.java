@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.benchmark;
+
+import com.fanwe.lib.pulltorefresh.core.TouchMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 触摸移动计算，每次调用对应一个MOVE事件
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TouchMathBenchmark
+{
+    private static final int SIZE = 1024;
+    private static final float TAN_SQUARED_40 = TouchMath.getTanSquared(40);
+
+    private final float[] mDx = new float[SIZE];
+    private final float[] mDy = new float[SIZE];
+    private int mIndex;
+
+    @Setup
+    public void setup()
+    {
+        final Random random = new Random(20170929);
+        for (int i = 0; i < SIZE; i++)
+        {
+            mDx[i] = (random.nextFloat() - 0.5f) * 200;
+            mDy[i] = (random.nextFloat() - 0.5f) * 400;
+        }
+    }
+
+    private int next()
+    {
+        mIndex = (mIndex + 1) & (SIZE - 1);
+        return mIndex;
+    }
+
+    /**
+     * 通过反三角函数计算夹角再比较
+     */
+    @Benchmark
+    public boolean degreeYAtan()
+    {
+        final int i = next();
+        return TouchMath.getDegreeY(mDx[i], mDy[i]) < 40;
+    }
+
+    /**
+     * 比较斜率的平方
+     */
+    @Benchmark
+    public boolean degreeYSlopeSquared()
+    {
+        final int i = next();
+        return TouchMath.isDegreeYLessThan(mDx[i], mDy[i], TAN_SQUARED_40);
+    }
+
+    @Benchmark
+    public double degreeXAtan()
+    {
+        final int i = next();
+        return TouchMath.getDegreeX(mDx[i], mDy[i]);
+    }
+
+    @Benchmark
+    public boolean overSlop()
+    {
+        final int i = next();
+        return TouchMath.isOverSlop(mDy[i], 16);
+    }
+
+    /**
+     * 拖动判断：超过最小距离并且夹角小于40度
+     */
+    @Benchmark
+    public boolean pullGesture()
+    {
+        final int i = next();
+        return TouchMath.isOverSlop(mDy[i], 16) && TouchMath.isDegreeYLessThan(mDx[i], mDy[i], TAN_SQUARED_40);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.compiler;
+
+import com.fanwe.lib.pulltorefresh.annotation.DefaultFooterView;
+import com.fanwe.lib.pulltorefresh.annotation.DefaultHeaderView;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 根据{@link DefaultHeaderView}和{@link DefaultFooterView}生成全局默认加载view的工厂类<br>
+ * 生成的类直接调用加载view的构造方法，SDPullToRefreshView创建默认加载view的时候不需要反射
+ */
+public class LoadingViewFactoryProcessor extends AbstractProcessor
+{
+    /**
+     * 生成的工厂类的包名和类名，和LoadingViewRegistry.GENERATED_FACTORY_CLASS_NAME一致；
+     * 包名只给生成的类使用，不和库里面的包重复
+     */
+    static final String FACTORY_PACKAGE = "com.fanwe.lib.pulltorefresh.generated";
+    static final String FACTORY_NAME = "GeneratedLoadingViewFactory";
+
+    private static final String LOADING_VIEW_CLASS_NAME = "com.fanwe.lib.pulltorefresh.loadingview.SDPullToRefreshLoadingView";
+    private static final String FACTORY_INTERFACE_NAME = "com.fanwe.lib.pulltorefresh.loadingview.LoadingViewFactory";
+    private static final String CONTEXT_CLASS_NAME = "android.content.Context";
+
+    private Filer mFiler;
+    private Messager mMessager;
+    private Elements mElements;
+    private Types mTypes;
+
+    private TypeElement mHeaderView;
+    private TypeElement mFooterView;
+    private boolean mIsGenerated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv)
+    {
+        super.init(processingEnv);
+        mFiler = processingEnv.getFiler();
+        mMessager = processingEnv.getMessager();
+        mElements = processingEnv.getElementUtils();
+        mTypes = processingEnv.getTypeUtils();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes()
+    {
+        final Set<String> set = new HashSet<String>();
+        set.add(DefaultHeaderView.class.getCanonicalName());
+        set.add(DefaultFooterView.class.getCanonicalName());
+        return set;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+    {
+        final TypeElement headerView = findLoadingView(roundEnv, DefaultHeaderView.class, mHeaderView);
+        final TypeElement footerView = findLoadingView(roundEnv, DefaultFooterView.class, mFooterView);
+        if (headerView == null && footerView == null)
+        {
+            return false;
+        }
+
+        if (mIsGenerated)
+        {
+            error(headerView != null ? headerView : footerView, FACTORY_NAME + " has already been generated in a previous round");
+            return false;
+        }
+
+        if (headerView != null)
+        {
+            mHeaderView = headerView;
+        }
+        if (footerView != null)
+        {
+            mFooterView = footerView;
+        }
+
+        generateFactory();
+        mIsGenerated = true;
+        return true;
+    }
+
+    /**
+     * 找到这一轮中被注解的加载view
+     *
+     * @param roundEnv
+     * @param annotation
+     * @param previous   之前的轮次中找到的加载view
+     * @return 没有找到或者不合法的时候返回null
+     */
+    private TypeElement findLoadingView(RoundEnvironment roundEnv, Class<? extends Annotation> annotation, TypeElement previous)
+    {
+        final String annotationName = "@" + annotation.getSimpleName();
+
+        TypeElement result = null;
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+        {
+            if (previous != null || result != null)
+            {
+                error(element, annotationName + " can only be used once, already used on " + (previous != null ? previous : result));
+                continue;
+            }
+            if (checkLoadingView(element, annotationName))
+            {
+                result = (TypeElement) element;
+            }
+        }
+        return result;
+    }
+
+    private boolean checkLoadingView(Element element, String annotationName)
+    {
+        if (element.getKind() != ElementKind.CLASS)
+        {
+            error(element, annotationName + " can only be used on classes");
+            return false;
+        }
+
+        final TypeElement typeElement = (TypeElement) element;
+        if (typeElement.getModifiers().contains(Modifier.ABSTRACT))
+        {
+            error(element, annotationName + " can not be used on abstract class");
+            return false;
+        }
+        if (!isAccessible(typeElement))
+        {
+            error(element, annotationName + " class must be public, nested class must be public static");
+            return false;
+        }
+
+        final TypeElement loadingView = mElements.getTypeElement(LOADING_VIEW_CLASS_NAME);
+        if (loadingView == null || !mTypes.isSubtype(typeElement.asType(), loadingView.asType()))
+        {
+            error(element, annotationName + " class must extend " + LOADING_VIEW_CLASS_NAME);
+            return false;
+        }
+
+        if (!hasContextConstructor(typeElement))
+        {
+            error(element, annotationName + " class must have a public constructor with a single " + CONTEXT_CLASS_NAME + " parameter");
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(TypeElement element)
+    {
+        Element item = element;
+        while (item instanceof TypeElement)
+        {
+            final TypeElement typeElement = (TypeElement) item;
+            if (!typeElement.getModifiers().contains(Modifier.PUBLIC))
+            {
+                return false;
+            }
+            if (typeElement.getNestingKind() == NestingKind.MEMBER && !typeElement.getModifiers().contains(Modifier.STATIC))
+            {
+                return false;
+            }
+            item = typeElement.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private boolean hasContextConstructor(TypeElement element)
+    {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements()))
+        {
+            if (!constructor.getModifiers().contains(Modifier.PUBLIC))
+            {
+                continue;
+            }
+
+            final List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() == 1
+                    && mTypes.erasure(parameters.get(0).asType()).toString().equals(CONTEXT_CLASS_NAME))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void generateFactory()
+    {
+        final String headerName = mHeaderView == null ? null : mHeaderView.getQualifiedName().toString();
+        final String footerName = mFooterView == null ? null : mFooterView.getQualifiedName().toString();
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append("// Generated by ").append(LoadingViewFactoryProcessor.class.getSimpleName()).append(", do not modify.\n");
+        sb.append("package ").append(FACTORY_PACKAGE).append(";\n\n");
+        sb.append("import android.content.Context;\n\n");
+        sb.append("import ").append(FACTORY_INTERFACE_NAME).append(";\n");
+        sb.append("import ").append(LOADING_VIEW_CLASS_NAME).append(";\n\n");
+        sb.append("public final class ").append(FACTORY_NAME).append(" implements LoadingViewFactory\n");
+        sb.append("{\n");
+        appendMethods(sb, "Header", headerName);
+        sb.append("\n");
+        appendMethods(sb, "Footer", footerName);
+        sb.append("}\n");
+
+        final Element[] originatingElements = mHeaderView != null && mFooterView != null ?
+                new Element[]{mHeaderView, mFooterView} : new Element[]{mHeaderView != null ? mHeaderView : mFooterView};
+
+        Writer writer = null;
+        try
+        {
+            final JavaFileObject file = mFiler.createSourceFile(FACTORY_PACKAGE + "." + FACTORY_NAME, originatingElements);
+            writer = file.openWriter();
+            writer.write(sb.toString());
+        } catch (IOException e)
+        {
+            mMessager.printMessage(Diagnostic.Kind.ERROR, "generate " + FACTORY_NAME + " error:" + e);
+        } finally
+        {
+            if (writer != null)
+            {
+                try
+                {
+                    writer.close();
+                } catch (IOException e)
+                {
+                    mMessager.printMessage(Diagnostic.Kind.ERROR, "close " + FACTORY_NAME + " error:" + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param sb
+     * @param type      Header或者Footer
+     * @param className 加载view类的全名，为null的话方法都返回null
+     */
+    private static void appendMethods(StringBuilder sb, String type, String className)
+    {
+        sb.append("    @Override\n");
+        sb.append("    public Class<? extends SDPullToRefreshLoadingView> get").append(type).append("ViewClass()\n");
+        sb.append("    {\n");
+        sb.append("        return ").append(className == null ? "null" : className + ".class").append(";\n");
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n");
+        sb.append("    public SDPullToRefreshLoadingView create").append(type).append("View(Context context)\n");
+        sb.append("    {\n");
+        sb.append("        return ").append(className == null ? "null" : "new " + className + "(context)").append(";\n");
+        sb.append("    }\n");
+    }
+
+    private void error(Element element, String message)
+    {
+        mMessager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
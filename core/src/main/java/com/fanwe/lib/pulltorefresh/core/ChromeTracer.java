@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * 把区间写成Chrome trace event格式的json，可以用chrome://tracing或者Perfetto打开<br>
+ * 每个区间写入一对B，E事件，时间单位是微秒，tid是调用的线程id；
+ * 写入失败后不再写入，可以调用{@link #getError()}获得异常；没有调用{@link #close()}的文件也可以打开
+ */
+public class ChromeTracer implements Tracer
+{
+    private static final int PID = 1;
+    private static final String CATEGORY = "pulltorefresh";
+
+    private final Writer mWriter;
+    private final StringBuilder mBuilder = new StringBuilder(128);
+    private char[] mChars = new char[128];
+
+    private boolean mHasEvent;
+    private boolean mIsClosed;
+    private IOException mError;
+
+    public ChromeTracer(OutputStream outputStream)
+    {
+        if (outputStream == null)
+        {
+            throw new IllegalArgumentException("outputStream must not be null");
+        }
+        mWriter = new BufferedWriter(new OutputStreamWriter(outputStream, Charset.forName("UTF-8")));
+        mBuilder.append('[');
+        write();
+    }
+
+    @Override
+    public synchronized void beginSection(String name)
+    {
+        if (!isWritable())
+        {
+            return;
+        }
+        appendStart();
+        mBuilder.append("{\"name\":\"");
+        appendEscaped(name);
+        mBuilder.append("\",\"cat\":\"").append(CATEGORY).append("\",\"ph\":\"B\"");
+        appendTime();
+        write();
+    }
+
+    @Override
+    public synchronized void endSection()
+    {
+        if (!isWritable())
+        {
+            return;
+        }
+        appendStart();
+        mBuilder.append("{\"ph\":\"E\"");
+        appendTime();
+        write();
+    }
+
+    /**
+     * 写入缓存的数据
+     */
+    public synchronized void flush()
+    {
+        if (!isWritable())
+        {
+            return;
+        }
+        try
+        {
+            mWriter.flush();
+        } catch (IOException e)
+        {
+            mError = e;
+        }
+    }
+
+    /**
+     * 结束json数组并关闭输出流
+     */
+    public synchronized void close()
+    {
+        if (mIsClosed)
+        {
+            return;
+        }
+        mIsClosed = true;
+        try
+        {
+            if (mError == null)
+            {
+                mWriter.write("\n]\n");
+            }
+        } catch (IOException e)
+        {
+            mError = e;
+        } finally
+        {
+            try
+            {
+                mWriter.close();
+            } catch (IOException e)
+            {
+                if (mError == null)
+                {
+                    mError = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 返回写入失败的异常，没有失败返回null
+     *
+     * @return
+     */
+    public synchronized IOException getError()
+    {
+        return mError;
+    }
+
+    private boolean isWritable()
+    {
+        return !mIsClosed && mError == null;
+    }
+
+    private void appendStart()
+    {
+        if (mHasEvent)
+        {
+            mBuilder.append(',');
+        }
+        mBuilder.append('\n');
+        mHasEvent = true;
+    }
+
+    private void appendTime()
+    {
+        mBuilder.append(",\"ts\":").append(System.nanoTime() / 1000)
+                .append(",\"pid\":").append(PID)
+                .append(",\"tid\":").append(Thread.currentThread().getId())
+                .append('}');
+    }
+
+    private void appendEscaped(String name)
+    {
+        final int length = name.length();
+        for (int i = 0; i < length; i++)
+        {
+            final char c = name.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                mBuilder.append('\\').append(c);
+            } else if (c < 0x20)
+            {
+                mBuilder.append(' ');
+            } else
+            {
+                mBuilder.append(c);
+            }
+        }
+    }
+
+    /**
+     * 把拼接好的事件写入输出流，复用字符数组，不为每个事件创建字符串
+     */
+    private void write()
+    {
+        final int length = mBuilder.length();
+        if (mChars.length < length)
+        {
+            mChars = new char[Math.max(length, mChars.length * 2)];
+        }
+        mBuilder.getChars(0, length, mChars, 0);
+        mBuilder.setLength(0);
+        try
+        {
+            mWriter.write(mChars, 0, length);
+        } catch (IOException e)
+        {
+            mError = e;
+        }
+    }
+}
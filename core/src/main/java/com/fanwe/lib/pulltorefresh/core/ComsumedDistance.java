@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 计算拖动阻尼后view实际移动的距离<br>
+ * 不足一个像素的距离会保留到下一次计算，拖动过程中不会丢失距离
+ */
+public final class ComsumedDistance
+{
+    /**
+     * 拖动的时候要消耗的拖动距离比例
+     */
+    private float mComsumeScrollPercent;
+    /**
+     * 计算拖动阻尼后不足一个像素的剩余距离
+     */
+    private float mRemainder;
+
+    /**
+     * 设置拖动的时候要消耗的拖动距离比例
+     *
+     * @param comsumeScrollPercent [0-1]
+     */
+    public void setComsumeScrollPercent(float comsumeScrollPercent)
+    {
+        mComsumeScrollPercent = comsumeScrollPercent;
+    }
+
+    public float getComsumeScrollPercent()
+    {
+        return mComsumeScrollPercent;
+    }
+
+    /**
+     * 清除剩余的距离，开始新的拖动的时候调用
+     */
+    public void reset()
+    {
+        mRemainder = 0;
+    }
+
+    /**
+     * 返回手指移动一段距离后，view要移动的整数距离，即手指移动的距离乘以{@link #getComsumeScrollPercent()}，
+     * 不是被阻尼消耗掉的距离
+     *
+     * @param rawDistance 手指移动的距离
+     * @return
+     */
+    public int getAppliedDistance(float rawDistance)
+    {
+        final float distance = rawDistance * mComsumeScrollPercent + mRemainder;
+        final int distanceInt = (int) distance;
+        mRemainder = distance - distanceInt;
+        return distanceInt;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 基于内存映射文件的环形事件记录<br>
+ * 每条记录固定{@link #RECORD_SIZE}字节，写满后覆盖最早的记录；记录只是写内存，由系统把数据写回文件，
+ * 应用崩溃或者被杀死后记录依然保存在文件中，可以用{@link EventRingLogDump}转换为csv<br>
+ * 文件格式：头部{@link #HEADER_SIZE}字节（magic，版本，记录大小，容量，已写入的记录总数），后面是capacity条记录；
+ * 每条记录：时间（毫秒），类型，状态，方向，保留，滚动距离，帧时间（毫秒）
+ */
+public class EventRingLog
+{
+    public static final int MAGIC = 0x50544552;
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 24;
+
+    /**
+     * 状态变化
+     */
+    public static final int EVENT_STATE = 1;
+    /**
+     * 滚动动画开始
+     */
+    public static final int EVENT_SETTLE_START = 2;
+    /**
+     * 滚动动画结束
+     */
+    public static final int EVENT_SETTLE_FINISH = 3;
+    /**
+     * 通知刷新回调
+     */
+    public static final int EVENT_REFRESH_CALLBACK = 4;
+
+    static final int OFFSET_MAGIC = 0;
+    static final int OFFSET_VERSION = 4;
+    static final int OFFSET_RECORD_SIZE = 8;
+    static final int OFFSET_CAPACITY = 12;
+    static final int OFFSET_COUNT = 16;
+
+    private final RandomAccessFile mFile;
+    private final MappedByteBuffer mBuffer;
+    private final int mCapacity;
+    private long mCount;
+
+    private EventRingLog(RandomAccessFile file, MappedByteBuffer buffer, int capacity, long count)
+    {
+        mFile = file;
+        mBuffer = buffer;
+        mCapacity = capacity;
+        mCount = count;
+    }
+
+    /**
+     * 打开文件，文件格式和容量一致的时候在原来的记录后面继续写入，否则清空文件<br>
+     * 打开的时候会读写文件，不要在主线程调用
+     *
+     * @param file
+     * @param capacity 最多保存的记录数量
+     * @return
+     * @throws IOException
+     */
+    public static EventRingLog open(File file, int capacity) throws IOException
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+
+        final long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try
+        {
+            final boolean valid = randomAccessFile.length() == size;
+            randomAccessFile.setLength(size);
+
+            final MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            buffer.load();
+
+            long count = 0;
+            if (valid
+                    && buffer.getInt(OFFSET_MAGIC) == MAGIC
+                    && buffer.getInt(OFFSET_VERSION) == VERSION
+                    && buffer.getInt(OFFSET_RECORD_SIZE) == RECORD_SIZE
+                    && buffer.getInt(OFFSET_CAPACITY) == capacity)
+            {
+                count = buffer.getLong(OFFSET_COUNT);
+            } else
+            {
+                buffer.putInt(OFFSET_MAGIC, MAGIC);
+                buffer.putInt(OFFSET_VERSION, VERSION);
+                buffer.putInt(OFFSET_RECORD_SIZE, RECORD_SIZE);
+                buffer.putInt(OFFSET_CAPACITY, capacity);
+                buffer.putLong(OFFSET_COUNT, 0);
+            }
+            return new EventRingLog(randomAccessFile, buffer, capacity, count);
+        } catch (IOException e)
+        {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    public int getCapacity()
+    {
+        return mCapacity;
+    }
+
+    /**
+     * 返回已经写入的记录总数，包括已经被覆盖的记录
+     *
+     * @return
+     */
+    public synchronized long getCount()
+    {
+        return mCount;
+    }
+
+    /**
+     * 写入一条记录，只写内存，不会阻塞在文件读写上
+     *
+     * @param type           {@link #EVENT_STATE}...
+     * @param time           毫秒
+     * @param state          {@link PullState#STATE_RESET}...
+     * @param direction      {@link PullState#DIRECTION_NONE}...
+     * @param scrollDistance 滚动距离
+     * @param frameTime      当前帧的时间（毫秒）
+     */
+    public synchronized void append(int type, long time, int state, int direction, int scrollDistance, long frameTime)
+    {
+        final int offset = HEADER_SIZE + (int) (mCount % mCapacity) * RECORD_SIZE;
+        mBuffer.putLong(offset, time);
+        mBuffer.put(offset + 8, (byte) type);
+        mBuffer.put(offset + 9, (byte) state);
+        mBuffer.put(offset + 10, (byte) direction);
+        mBuffer.put(offset + 11, (byte) 0);
+        mBuffer.putInt(offset + 12, scrollDistance);
+        mBuffer.putLong(offset + 16, frameTime);
+
+        // 记录写完后再更新数量，中途被杀死的时候不会读到写了一半的记录
+        mCount++;
+        mBuffer.putLong(OFFSET_COUNT, mCount);
+    }
+
+    /**
+     * 关闭文件，映射的内存由系统在回收的时候写回文件
+     *
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException
+    {
+        mFile.close();
+    }
+}
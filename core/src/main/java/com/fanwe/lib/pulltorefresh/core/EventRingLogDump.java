@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 把{@link EventRingLog}的文件转换为csv，按写入顺序从最早的记录开始输出<br>
+ * 参数：记录文件路径
+ */
+public class EventRingLogDump
+{
+    private static final String[] EVENT_NAMES = {
+            "unknown",
+            "state",
+            "settle_start",
+            "settle_finish",
+            "refresh_callback",
+    };
+
+    public static void dump(ByteBuffer buffer, PrintStream out) throws IOException
+    {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.limit() < EventRingLog.HEADER_SIZE
+                || buffer.getInt(EventRingLog.OFFSET_MAGIC) != EventRingLog.MAGIC)
+        {
+            throw new IOException("not an event ring log");
+        }
+        final int version = buffer.getInt(EventRingLog.OFFSET_VERSION);
+        if (version != EventRingLog.VERSION)
+        {
+            throw new IOException("unsupported version:" + version);
+        }
+        final int recordSize = buffer.getInt(EventRingLog.OFFSET_RECORD_SIZE);
+        final int capacity = buffer.getInt(EventRingLog.OFFSET_CAPACITY);
+        final long count = buffer.getLong(EventRingLog.OFFSET_COUNT);
+        if (recordSize != EventRingLog.RECORD_SIZE || capacity <= 0
+                || buffer.limit() < EventRingLog.HEADER_SIZE + (long) capacity * recordSize)
+        {
+            throw new IOException("corrupted event ring log");
+        }
+
+        out.println("index,time,event,state,direction,scroll_distance,frame_time");
+        final long start = Math.max(0, count - capacity);
+        for (long i = start; i < count; i++)
+        {
+            final int offset = EventRingLog.HEADER_SIZE + (int) (i % capacity) * recordSize;
+            final int type = buffer.get(offset + 8);
+            final int state = buffer.get(offset + 9);
+            final int direction = buffer.get(offset + 10);
+
+            out.print(i);
+            out.print(',');
+            out.print(buffer.getLong(offset));
+            out.print(',');
+            out.print(getName(EVENT_NAMES, type));
+            out.print(',');
+            out.print(getName(GestureTraceDump.STATE_NAMES, state));
+            out.print(',');
+            out.print(getName(GestureTraceDump.DIRECTION_NAMES, direction));
+            out.print(',');
+            out.print(buffer.getInt(offset + 12));
+            out.print(',');
+            out.print(buffer.getLong(offset + 16));
+            out.println();
+        }
+    }
+
+    private static String getName(String[] names, int value)
+    {
+        if (value >= 0 && value < names.length)
+        {
+            return names[value];
+        }
+        return String.valueOf(value);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("usage: EventRingLogDump <log file>");
+            System.exit(2);
+        }
+
+        final RandomAccessFile file = new RandomAccessFile(args[0], "r");
+        try
+        {
+            final byte[] data = new byte[(int) file.length()];
+            file.readFully(data);
+            dump(ByteBuffer.wrap(data), System.out);
+        } finally
+        {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * 每次手势的操作次数预算<br>
+ * 预算文件是properties格式，key为{@link GestureCounter#getName(int)}，value为一次手势中允许的最大次数，没有配置的计数器不检查
+ */
+public class GestureBudget
+{
+    /**
+     * 没有限制
+     */
+    public static final int UNLIMITED = -1;
+
+    private final int[] mMax = new int[GestureCounter.COUNTER_COUNT];
+
+    public GestureBudget()
+    {
+        for (int i = 0; i < mMax.length; i++)
+        {
+            mMax[i] = UNLIMITED;
+        }
+    }
+
+    /**
+     * 从properties格式的输入流中读取预算
+     *
+     * @param inputStream
+     * @return
+     * @throws IOException
+     */
+    public static GestureBudget load(InputStream inputStream) throws IOException
+    {
+        final Properties properties = new Properties();
+        properties.load(inputStream);
+
+        final GestureBudget budget = new GestureBudget();
+        for (int i = 0; i < GestureCounter.COUNTER_COUNT; i++)
+        {
+            final String value = properties.getProperty(GestureCounter.getName(i));
+            if (value != null)
+            {
+                try
+                {
+                    budget.setMax(i, Integer.parseInt(value.trim()));
+                } catch (NumberFormatException e)
+                {
+                    throw new IOException("illegal budget for " + GestureCounter.getName(i) + ":" + value);
+                }
+            }
+        }
+        return budget;
+    }
+
+    /**
+     * 设置一次手势中允许的最大次数
+     *
+     * @param counter {@link GestureCounter#COUNTER_MEASURE}...
+     * @param max     {@link #UNLIMITED}-不限制
+     */
+    public void setMax(int counter, int max)
+    {
+        mMax[counter] = max;
+    }
+
+    public int getMax(int counter)
+    {
+        return mMax[counter];
+    }
+
+    /**
+     * 检查最近一次手势的计数是否在预算内
+     *
+     * @param counter
+     * @param out     不为null的时候写入超出预算的计数器
+     * @return true-在预算内
+     */
+    public boolean check(GestureCounter counter, StringBuilder out)
+    {
+        boolean result = true;
+        for (int i = 0; i < GestureCounter.COUNTER_COUNT; i++)
+        {
+            final int max = mMax[i];
+            if (max != UNLIMITED && counter.get(i) > max)
+            {
+                result = false;
+                if (out != null)
+                {
+                    out.append(GestureCounter.getName(i)).append(':')
+                            .append(counter.get(i)).append(" > ").append(max).append('\n');
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 一次手势中各种操作的次数统计，和平台无关<br>
+ * 手势从按下（或者代码触发刷新）开始，到状态回到Reset结束，可以通过{@link GestureBudget}检查是否超过预算
+ */
+public class GestureCounter
+{
+    public static final int COUNTER_MEASURE = 0;
+    public static final int COUNTER_LAYOUT = 1;
+    public static final int COUNTER_REQUEST_LAYOUT = 2;
+    public static final int COUNTER_STATE_CHANGED = 3;
+    public static final int COUNTER_LOADING_VIEW_STATE_CHANGED = 4;
+    public static final int COUNTER_REFRESH_CALLBACK = 5;
+
+    /**
+     * 预算文件中对应的名称
+     */
+    static final String[] NAMES = {
+            "measure",
+            "layout",
+            "request_layout",
+            "state_changed",
+            "loading_view_state_changed",
+            "refresh_callback",
+    };
+
+    public static final int COUNTER_COUNT = 6;
+
+    private final int[] mCounts = new int[COUNTER_COUNT];
+    private boolean mIsActive;
+    private int mGestureCount;
+
+    private OnGestureFinishListener mOnGestureFinishListener;
+
+    public void setOnGestureFinishListener(OnGestureFinishListener onGestureFinishListener)
+    {
+        mOnGestureFinishListener = onGestureFinishListener;
+    }
+
+    /**
+     * 返回计数器在预算文件中的名称
+     *
+     * @param counter
+     * @return
+     */
+    public static String getName(int counter)
+    {
+        return NAMES[counter];
+    }
+
+    /**
+     * 开始统计新的手势，如果已经在统计中则不处理
+     */
+    public void begin()
+    {
+        if (mIsActive)
+        {
+            return;
+        }
+        for (int i = 0; i < COUNTER_COUNT; i++)
+        {
+            mCounts[i] = 0;
+        }
+        mIsActive = true;
+    }
+
+    /**
+     * 结束统计，回调{@link OnGestureFinishListener}
+     */
+    public void end()
+    {
+        if (!mIsActive)
+        {
+            return;
+        }
+        mIsActive = false;
+        mGestureCount++;
+        if (mOnGestureFinishListener != null)
+        {
+            mOnGestureFinishListener.onGestureFinish(this);
+        }
+    }
+
+    /**
+     * 取消统计，不回调{@link OnGestureFinishListener}，例如按下后没有触发拖动
+     */
+    public void cancel()
+    {
+        mIsActive = false;
+    }
+
+    public boolean isActive()
+    {
+        return mIsActive;
+    }
+
+    /**
+     * 计数加1，不在统计中的时候不处理
+     *
+     * @param counter {@link #COUNTER_MEASURE}...
+     */
+    public void increment(int counter)
+    {
+        if (mIsActive)
+        {
+            mCounts[counter]++;
+        }
+    }
+
+    /**
+     * 返回最近一次手势的计数
+     *
+     * @param counter {@link #COUNTER_MEASURE}...
+     * @return
+     */
+    public int get(int counter)
+    {
+        return mCounts[counter];
+    }
+
+    /**
+     * 返回已经结束的手势数量
+     *
+     * @return
+     */
+    public int getGestureCount()
+    {
+        return mGestureCount;
+    }
+
+    public interface OnGestureFinishListener
+    {
+        /**
+         * 一次手势结束
+         *
+         * @param counter
+         */
+        void onGestureFinish(GestureCounter counter);
+    }
+}
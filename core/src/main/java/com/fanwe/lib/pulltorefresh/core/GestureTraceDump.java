@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * 把手势记录转换为文本，每行一条记录<br>
+ * 参数：手势记录文件路径
+ */
+public class GestureTraceDump
+{
+    static final String[] STATE_NAMES = {
+            "RESET",
+            "PULL_TO_REFRESH",
+            "RELEASE_TO_REFRESH",
+            "REFRESHING",
+            "REFRESH_SUCCESS",
+            "REFRESH_FAILURE",
+            "REFRESH_FINISH",
+    };
+
+    static final String[] DIRECTION_NAMES = {
+            "NONE",
+            "FROM_HEADER",
+            "FROM_FOOTER",
+    };
+
+    public static void dump(GestureTraceReader reader, PrintStream out) throws IOException
+    {
+        long startTime = -1;
+        int type;
+        while ((type = reader.next()) != 0)
+        {
+            if (startTime < 0)
+            {
+                startTime = reader.getTime();
+            }
+            out.print(reader.getTime() - startTime);
+            switch (type)
+            {
+                case GestureTraceWriter.RECORD_TOUCH:
+                    out.print(" touch action=");
+                    out.print(reader.getAction());
+                    out.print(" history=");
+                    out.print(reader.getHistorySize());
+                    for (int p = 0; p < reader.getPointerCount(); p++)
+                    {
+                        out.print(" [");
+                        out.print(reader.getPointerId(p));
+                        out.print(' ');
+                        out.print(reader.getSampleX(reader.getHistorySize(), p));
+                        out.print(',');
+                        out.print(reader.getSampleY(reader.getHistorySize(), p));
+                        out.print(']');
+                    }
+                    break;
+                case GestureTraceWriter.RECORD_STATE:
+                    out.print(" state ");
+                    out.print(STATE_NAMES[reader.getState()]);
+                    out.print(' ');
+                    out.print(DIRECTION_NAMES[reader.getDirection()]);
+                    break;
+                case GestureTraceWriter.RECORD_POSITION:
+                    out.print(" position ");
+                    out.print(reader.getScrollDistance());
+                    break;
+            }
+            out.println();
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("usage: GestureTraceDump <trace file>");
+            System.exit(2);
+        }
+
+        final GestureTraceReader reader = new GestureTraceReader(new BufferedInputStream(new FileInputStream(args[0])));
+        try
+        {
+            dump(reader, System.out);
+        } finally
+        {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读取{@link GestureTraceWriter}写入的手势记录，格式见{@link GestureTraceWriter}<br>
+ * 每次调用{@link #next()}读取一条记录，记录的内容通过getter获得，对象会被复用
+ */
+public class GestureTraceReader
+{
+    private final DataInputStream mInputStream;
+
+    private int mRecordType;
+
+    private long mTime;
+    private long mDownTime;
+    private int mAction;
+    private int mPointerCount;
+    private int mHistorySize;
+    private float mRawOffsetX;
+    private float mRawOffsetY;
+    private final int[] mPointerIds = new int[GestureTraceWriter.MAX_POINTER_COUNT];
+    private long[] mSampleTimes = new long[1];
+    private float[] mSampleX = new float[GestureTraceWriter.MAX_POINTER_COUNT];
+    private float[] mSampleY = new float[GestureTraceWriter.MAX_POINTER_COUNT];
+
+    private int mState;
+    private int mDirection;
+    private int mScrollDistance;
+
+    public GestureTraceReader(InputStream inputStream) throws IOException
+    {
+        mInputStream = new DataInputStream(inputStream);
+        final int magic = mInputStream.readInt();
+        if (magic != GestureTraceWriter.MAGIC)
+        {
+            throw new IOException("not a gesture trace");
+        }
+        final int version = mInputStream.readUnsignedByte();
+        if (version != GestureTraceWriter.VERSION)
+        {
+            throw new IOException("unsupported gesture trace version:" + version);
+        }
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 记录类型{@link GestureTraceWriter#RECORD_TOUCH}...，0-没有更多记录
+     * @throws IOException
+     */
+    public int next() throws IOException
+    {
+        final int type = mInputStream.read();
+        if (type < 0)
+        {
+            mRecordType = 0;
+            return 0;
+        }
+
+        try
+        {
+            switch (type)
+            {
+                case GestureTraceWriter.RECORD_TOUCH:
+                    readTouch();
+                    break;
+                case GestureTraceWriter.RECORD_STATE:
+                    mTime = mInputStream.readLong();
+                    mState = mInputStream.readUnsignedByte();
+                    mDirection = mInputStream.readUnsignedByte();
+                    break;
+                case GestureTraceWriter.RECORD_POSITION:
+                    mTime = mInputStream.readLong();
+                    mScrollDistance = mInputStream.readInt();
+                    break;
+                default:
+                    throw new IOException("unknown record type:" + type);
+            }
+        } catch (EOFException e)
+        {
+            // 记录没有写完整，例如进程被杀
+            mRecordType = 0;
+            return 0;
+        }
+        mRecordType = type;
+        return type;
+    }
+
+    private void readTouch() throws IOException
+    {
+        mTime = mInputStream.readLong();
+        mDownTime = mInputStream.readLong();
+        mAction = mInputStream.readUnsignedShort();
+        mPointerCount = mInputStream.readUnsignedByte();
+        mHistorySize = mInputStream.readUnsignedShort();
+        mRawOffsetX = mInputStream.readFloat();
+        mRawOffsetY = mInputStream.readFloat();
+        for (int i = 0; i < mPointerCount; i++)
+        {
+            mPointerIds[i] = mInputStream.readUnsignedByte();
+        }
+
+        final int sampleCount = mHistorySize + 1;
+        if (mSampleTimes.length < sampleCount)
+        {
+            mSampleTimes = new long[sampleCount];
+        }
+        final int valueCount = sampleCount * mPointerCount;
+        if (mSampleX.length < valueCount)
+        {
+            mSampleX = new float[valueCount];
+            mSampleY = new float[valueCount];
+        }
+
+        int index = 0;
+        for (int s = 0; s < sampleCount; s++)
+        {
+            mSampleTimes[s] = mTime - mInputStream.readInt();
+            for (int p = 0; p < mPointerCount; p++)
+            {
+                mSampleX[index] = mInputStream.readFloat();
+                mSampleY[index] = mInputStream.readFloat();
+                index++;
+            }
+        }
+    }
+
+    public int getRecordType()
+    {
+        return mRecordType;
+    }
+
+    /**
+     * 返回记录的时间（毫秒），触摸事件为事件时间
+     *
+     * @return
+     */
+    public long getTime()
+    {
+        return mTime;
+    }
+
+    public long getDownTime()
+    {
+        return mDownTime;
+    }
+
+    /**
+     * 返回MotionEvent.getAction()，包括ACTION_POINTER_DOWN/UP的触摸点序号
+     *
+     * @return
+     */
+    public int getAction()
+    {
+        return mAction;
+    }
+
+    public int getPointerCount()
+    {
+        return mPointerCount;
+    }
+
+    public int getHistorySize()
+    {
+        return mHistorySize;
+    }
+
+    public float getRawOffsetX()
+    {
+        return mRawOffsetX;
+    }
+
+    public float getRawOffsetY()
+    {
+        return mRawOffsetY;
+    }
+
+    public int getPointerId(int pointerIndex)
+    {
+        return mPointerIds[pointerIndex];
+    }
+
+    /**
+     * 返回触摸点的时间
+     *
+     * @param sample [0-historySize)为历史触摸点，historySize为当前触摸点
+     * @return
+     */
+    public long getSampleTime(int sample)
+    {
+        return mSampleTimes[sample];
+    }
+
+    public float getSampleX(int sample, int pointerIndex)
+    {
+        return mSampleX[sample * mPointerCount + pointerIndex];
+    }
+
+    public float getSampleY(int sample, int pointerIndex)
+    {
+        return mSampleY[sample * mPointerCount + pointerIndex];
+    }
+
+    public int getState()
+    {
+        return mState;
+    }
+
+    public int getDirection()
+    {
+        return mDirection;
+    }
+
+    public int getScrollDistance()
+    {
+        return mScrollDistance;
+    }
+
+    public void close() throws IOException
+    {
+        mInputStream.close();
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 手势记录的二进制写入<br>
+ * 数据先写入固定大小的缓存，缓存满了以后再写入输出流，写入的过程中不创建对象<br>
+ * 格式（大端）：文件头[int {@link #MAGIC}][byte {@link #VERSION}]，之后是连续的记录，每条记录以一个byte类型开头：
+ * <ul>
+ * <li>{@link #RECORD_TOUCH}：[long eventTime][long downTime][short action][byte pointerCount][short historySize]
+ * [float rawOffsetX][float rawOffsetY][byte pointerId]*pointerCount，
+ * 之后是historySize个历史触摸点和1个当前触摸点：[int eventTime-sampleTime]([float x][float y])*pointerCount</li>
+ * <li>{@link #RECORD_STATE}：[long time][byte state][byte direction]</li>
+ * <li>{@link #RECORD_POSITION}：[long time][int scrollDistance]</li>
+ * </ul>
+ * 版本2：action从byte改为short，保存MotionEvent.getAction()第8-15位的触摸点序号，版本1的ACTION_POINTER_DOWN/UP重放时都会变成序号0
+ */
+public class GestureTraceWriter
+{
+    public static final int MAGIC = 0x50545254;
+    public static final int VERSION = 2;
+
+    public static final int RECORD_TOUCH = 1;
+    public static final int RECORD_STATE = 2;
+    public static final int RECORD_POSITION = 3;
+
+    /**
+     * 最多记录的触摸点数量
+     */
+    public static final int MAX_POINTER_COUNT = 16;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream mOutputStream;
+    private final byte[] mBuffer = new byte[BUFFER_SIZE];
+    private int mPosition;
+    /**
+     * 当前触摸事件的时间
+     */
+    private long mEventTime;
+
+    public GestureTraceWriter(OutputStream outputStream) throws IOException
+    {
+        if (outputStream == null)
+        {
+            throw new IllegalArgumentException("outputStream must not be null");
+        }
+        mOutputStream = outputStream;
+        putInt(MAGIC);
+        putByte(VERSION);
+    }
+
+    /**
+     * 写入触摸事件的开头，之后依次调用pointerCount次{@link #writePointerId(int)}，
+     * 再对每个历史触摸点和当前触摸点调用{@link #writeSampleTime(long)}和pointerCount次{@link #writeSamplePosition(float, float)}
+     *
+     * @param eventTime    事件时间（毫秒）
+     * @param downTime     按下时间（毫秒）
+     * @param action       MotionEvent.getAction()，包括ACTION_POINTER_DOWN/UP的触摸点序号
+     * @param pointerCount 触摸点数量，最多{@link #MAX_POINTER_COUNT}
+     * @param historySize  历史触摸点数量
+     * @param rawOffsetX   屏幕坐标和事件坐标的x差值
+     * @param rawOffsetY   屏幕坐标和事件坐标的y差值
+     * @throws IOException
+     */
+    public void writeTouchHeader(long eventTime, long downTime, int action, int pointerCount, int historySize,
+                                 float rawOffsetX, float rawOffsetY) throws IOException
+    {
+        if (pointerCount > MAX_POINTER_COUNT)
+        {
+            throw new IllegalArgumentException("pointerCount must be <= " + MAX_POINTER_COUNT);
+        }
+        ensure(1 + 8 + 8 + 2 + 1 + 2 + 4 + 4);
+        mEventTime = eventTime;
+        putByte(RECORD_TOUCH);
+        putLong(eventTime);
+        putLong(downTime);
+        putShort(action);
+        putByte(pointerCount);
+        putShort(historySize);
+        putFloat(rawOffsetX);
+        putFloat(rawOffsetY);
+    }
+
+    public void writePointerId(int pointerId) throws IOException
+    {
+        ensure(1);
+        putByte(pointerId);
+    }
+
+    /**
+     * 写入触摸点的时间
+     *
+     * @param sampleTime 毫秒
+     * @throws IOException
+     */
+    public void writeSampleTime(long sampleTime) throws IOException
+    {
+        ensure(4);
+        putInt((int) (mEventTime - sampleTime));
+    }
+
+    public void writeSamplePosition(float x, float y) throws IOException
+    {
+        ensure(8);
+        putFloat(x);
+        putFloat(y);
+    }
+
+    /**
+     * 写入状态变化
+     *
+     * @param time      毫秒
+     * @param state     {@link PullState#STATE_RESET}...
+     * @param direction {@link PullState#DIRECTION_NONE}...
+     * @throws IOException
+     */
+    public void writeState(long time, int state, int direction) throws IOException
+    {
+        ensure(1 + 8 + 1 + 1);
+        putByte(RECORD_STATE);
+        putLong(time);
+        putByte(state);
+        putByte(direction);
+    }
+
+    /**
+     * 写入位置变化
+     *
+     * @param time           毫秒
+     * @param scrollDistance 滚动距离
+     * @throws IOException
+     */
+    public void writePosition(long time, int scrollDistance) throws IOException
+    {
+        ensure(1 + 8 + 4);
+        putByte(RECORD_POSITION);
+        putLong(time);
+        putInt(scrollDistance);
+    }
+
+    /**
+     * 把缓存写入输出流
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException
+    {
+        if (mPosition > 0)
+        {
+            mOutputStream.write(mBuffer, 0, mPosition);
+            mPosition = 0;
+        }
+        mOutputStream.flush();
+    }
+
+    /**
+     * 写入缓存并关闭输出流
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException
+    {
+        try
+        {
+            flush();
+        } finally
+        {
+            mOutputStream.close();
+        }
+    }
+
+    private void ensure(int size) throws IOException
+    {
+        if (mPosition + size > BUFFER_SIZE)
+        {
+            mOutputStream.write(mBuffer, 0, mPosition);
+            mPosition = 0;
+        }
+    }
+
+    private void putByte(int value)
+    {
+        mBuffer[mPosition++] = (byte) value;
+    }
+
+    private void putShort(int value)
+    {
+        mBuffer[mPosition++] = (byte) (value >>> 8);
+        mBuffer[mPosition++] = (byte) value;
+    }
+
+    private void putInt(int value)
+    {
+        mBuffer[mPosition++] = (byte) (value >>> 24);
+        mBuffer[mPosition++] = (byte) (value >>> 16);
+        mBuffer[mPosition++] = (byte) (value >>> 8);
+        mBuffer[mPosition++] = (byte) value;
+    }
+
+    private void putLong(long value)
+    {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    private void putFloat(float value)
+    {
+        putInt(Float.floatToRawIntBits(value));
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 耗时分布统计，和平台无关<br>
+ * 使用固定的区间，记录的时候只修改预先分配的数组，不分配对象
+ */
+public class Histogram
+{
+    /**
+     * 默认的区间上限（毫秒，不包含），适合统计刷新这类较长的耗时
+     */
+    private static final long[] DEFAULT_BOUNDS = {
+            16, 33, 50, 100, 200, 300, 500, 750,
+            1000, 1500, 2000, 3000, 5000, 10000, 30000,
+    };
+
+    /**
+     * 每个区间的上限（毫秒，不包含），最后一个区间保存超过所有上限的值
+     */
+    private final long[] mBounds;
+    private final long[] mBuckets;
+    private long mCount;
+    private long mSum;
+    private long mMin;
+    private long mMax;
+
+    public Histogram()
+    {
+        this(DEFAULT_BOUNDS);
+    }
+
+    /**
+     * @param bounds 每个区间的上限（毫秒，不包含），必须递增
+     */
+    public Histogram(long[] bounds)
+    {
+        for (int i = 1; i < bounds.length; i++)
+        {
+            if (bounds[i] <= bounds[i - 1])
+            {
+                throw new IllegalArgumentException("bounds must be increasing");
+            }
+        }
+        mBounds = bounds.clone();
+        mBuckets = new long[bounds.length + 1];
+    }
+
+    /**
+     * 返回区间数量，包括最后一个保存超过所有上限的值的区间
+     *
+     * @return
+     */
+    public int getBucketCount()
+    {
+        return mBuckets.length;
+    }
+
+    /**
+     * 返回区间的上限（毫秒，不包含），最后一个区间返回{@link Long#MAX_VALUE}
+     *
+     * @param bucket
+     * @return
+     */
+    public long getBucketBound(int bucket)
+    {
+        return bucket < mBounds.length ? mBounds[bucket] : Long.MAX_VALUE;
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param value 毫秒，小于0按0记录
+     */
+    public void record(long value)
+    {
+        if (value < 0)
+        {
+            value = 0;
+        }
+
+        int bucket = 0;
+        while (bucket < mBounds.length && value >= mBounds[bucket])
+        {
+            bucket++;
+        }
+        mBuckets[bucket]++;
+
+        if (mCount == 0 || value < mMin)
+        {
+            mMin = value;
+        }
+        if (value > mMax)
+        {
+            mMax = value;
+        }
+        mCount++;
+        mSum += value;
+    }
+
+    public long getCount()
+    {
+        return mCount;
+    }
+
+    public long getSum()
+    {
+        return mSum;
+    }
+
+    public long getMin()
+    {
+        return mMin;
+    }
+
+    public long getMax()
+    {
+        return mMax;
+    }
+
+    public long getBucketCount(int bucket)
+    {
+        return mBuckets[bucket];
+    }
+
+    /**
+     * 返回平均耗时，没有记录返回0
+     *
+     * @return
+     */
+    public long getMean()
+    {
+        return mCount == 0 ? 0 : mSum / mCount;
+    }
+
+    /**
+     * 返回百分位耗时的近似值，即所在区间的上限，不超过最大值
+     *
+     * @param percentile 0-100
+     * @return
+     */
+    public long getPercentile(float percentile)
+    {
+        if (mCount == 0)
+        {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(mCount * percentile / 100f);
+        if (target < 1)
+        {
+            target = 1;
+        }
+        long count = 0;
+        for (int i = 0; i < mBuckets.length; i++)
+        {
+            count += mBuckets[i];
+            if (count >= target)
+            {
+                return Math.min(getBucketBound(i), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    /**
+     * 复制到另一个对象，两个对象的区间必须一致
+     *
+     * @param out
+     */
+    public void copyTo(Histogram out)
+    {
+        if (out.mBuckets.length != mBuckets.length)
+        {
+            throw new IllegalArgumentException("bucket count mismatch");
+        }
+        System.arraycopy(mBuckets, 0, out.mBuckets, 0, mBuckets.length);
+        out.mCount = mCount;
+        out.mSum = mSum;
+        out.mMin = mMin;
+        out.mMax = mMax;
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < mBuckets.length; i++)
+        {
+            mBuckets[i] = 0;
+        }
+        mCount = 0;
+        mSum = 0;
+        mMin = 0;
+        mMax = 0;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 拖动时触摸事件到画面的延迟统计，和平台无关<br>
+ * 每个参与拖动的MOVE事件调用{@link #onInput(long)}，位置变化后调用{@link #onPositionChanged()}，
+ * 下一次绘制的时候调用{@link #onFrame(long)}，延迟为绘制时间减去这一帧包含的最早的事件时间；
+ * 每次手势第一帧的延迟单独保存，可以看出开始拖动时拦截和消费事件的交接是否多等了一帧
+ */
+public class InputLatencyTracker
+{
+    /**
+     * 区间上限（毫秒，不包含），大约是60fps下的帧数
+     */
+    private static final long[] BOUNDS = {
+            4, 8, 12, 17, 21, 25, 33, 42, 50, 67, 83, 100, 150, 200,
+    };
+
+    private final Histogram mHistogram = new Histogram(BOUNDS);
+    private final Histogram mGestureHistogram = new Histogram(BOUNDS);
+
+    /**
+     * 还没有改变位置的最早的事件时间
+     */
+    private long mPendingTime = -1;
+    /**
+     * 已经改变位置还没有绘制的最早的事件时间
+     */
+    private long mAppliedTime = -1;
+    private long mFirstLatency = -1;
+    private boolean mIsActive;
+
+    private OnGestureLatencyListener mOnGestureLatencyListener;
+
+    public void setOnGestureLatencyListener(OnGestureLatencyListener onGestureLatencyListener)
+    {
+        mOnGestureLatencyListener = onGestureLatencyListener;
+    }
+
+    /**
+     * 手势开始（ACTION_DOWN）
+     */
+    public void onGestureStart()
+    {
+        mGestureHistogram.reset();
+        mPendingTime = -1;
+        mAppliedTime = -1;
+        mFirstLatency = -1;
+        mIsActive = true;
+    }
+
+    /**
+     * 收到参与拖动的事件
+     *
+     * @param eventTime MotionEvent.getEventTime()
+     */
+    public void onInput(long eventTime)
+    {
+        if (mIsActive && mPendingTime < 0)
+        {
+            mPendingTime = eventTime;
+        }
+    }
+
+    /**
+     * 事件改变了view的位置
+     */
+    public void onPositionChanged()
+    {
+        if (mPendingTime >= 0)
+        {
+            if (mAppliedTime < 0)
+            {
+                mAppliedTime = mPendingTime;
+            }
+            mPendingTime = -1;
+        }
+    }
+
+    /**
+     * 参与拖动的事件处理完了，但是没有改变view的位置（阻尼后不足1像素，或者已经到达限制的位置），
+     * 丢弃记录的事件时间，不计入下一次位置变化的延迟
+     */
+    public void onInputDropped()
+    {
+        mPendingTime = -1;
+    }
+
+    /**
+     * 绘制了一帧
+     *
+     * @param frameTime 和事件时间相同的时间基准（毫秒）
+     */
+    public void onFrame(long frameTime)
+    {
+        if (mAppliedTime < 0)
+        {
+            return;
+        }
+        final long latency = frameTime - mAppliedTime;
+        mAppliedTime = -1;
+        if (mFirstLatency < 0)
+        {
+            mFirstLatency = latency;
+        }
+        mGestureHistogram.record(latency);
+        mHistogram.record(latency);
+    }
+
+    /**
+     * 手势结束（ACTION_UP，ACTION_CANCEL），这次手势有延迟记录的时候通知回调
+     */
+    public void onGestureEnd()
+    {
+        if (!mIsActive)
+        {
+            return;
+        }
+        mIsActive = false;
+        mPendingTime = -1;
+        mAppliedTime = -1;
+        if (mGestureHistogram.getCount() > 0 && mOnGestureLatencyListener != null)
+        {
+            mOnGestureLatencyListener.onGestureLatency(this);
+        }
+    }
+
+    /**
+     * 返回所有手势的延迟统计
+     *
+     * @return
+     */
+    public Histogram getHistogram()
+    {
+        return mHistogram;
+    }
+
+    /**
+     * 返回当前（或者最后一次）手势的延迟统计
+     *
+     * @return
+     */
+    public Histogram getGestureHistogram()
+    {
+        return mGestureHistogram;
+    }
+
+    /**
+     * 返回当前（或者最后一次）手势第一帧的延迟，没有记录返回-1
+     *
+     * @return
+     */
+    public long getFirstLatency()
+    {
+        return mFirstLatency;
+    }
+
+    public interface OnGestureLatencyListener
+    {
+        /**
+         * 一次手势结束
+         *
+         * @param tracker 可以通过{@link InputLatencyTracker#getGestureHistogram()}和{@link InputLatencyTracker#getFirstLatency()}获得这次手势的延迟
+         */
+        void onGestureLatency(InputLatencyTracker tracker);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 手动推进时间的时钟和任务调度，用于在jvm上模拟手势
+ */
+public class ManualScheduler implements Clock, Scheduler
+{
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long mNow;
+
+    private Runnable[] mRunnables = new Runnable[INITIAL_CAPACITY];
+    private long[] mTimes = new long[INITIAL_CAPACITY];
+    private int mCount;
+
+    @Override
+    public long uptimeMillis()
+    {
+        return mNow;
+    }
+
+    @Override
+    public void schedule(Runnable runnable, long delayMillis)
+    {
+        if (runnable == null)
+        {
+            return;
+        }
+        if (mCount == mRunnables.length)
+        {
+            final int capacity = mCount * 2;
+            final Runnable[] runnables = new Runnable[capacity];
+            final long[] times = new long[capacity];
+            System.arraycopy(mRunnables, 0, runnables, 0, mCount);
+            System.arraycopy(mTimes, 0, times, 0, mCount);
+            mRunnables = runnables;
+            mTimes = times;
+        }
+        mRunnables[mCount] = runnable;
+        mTimes[mCount] = mNow + Math.max(0, delayMillis);
+        mCount++;
+    }
+
+    @Override
+    public void cancel(Runnable runnable)
+    {
+        int i = 0;
+        while (i < mCount)
+        {
+            if (mRunnables[i] == runnable)
+            {
+                removeAt(i);
+            } else
+            {
+                i++;
+            }
+        }
+    }
+
+    private void removeAt(int index)
+    {
+        final int moved = mCount - index - 1;
+        if (moved > 0)
+        {
+            System.arraycopy(mRunnables, index + 1, mRunnables, index, moved);
+            System.arraycopy(mTimes, index + 1, mTimes, index, moved);
+        }
+        mCount--;
+        mRunnables[mCount] = null;
+    }
+
+    /**
+     * 返回还没有执行的任务数量
+     *
+     * @return
+     */
+    public int getPendingCount()
+    {
+        return mCount;
+    }
+
+    /**
+     * 时间前进指定的时长，按照时间顺序执行到期的任务
+     *
+     * @param millis
+     */
+    public void advance(long millis)
+    {
+        final long end = mNow + millis;
+        while (true)
+        {
+            int next = -1;
+            for (int i = 0; i < mCount; i++)
+            {
+                if (mTimes[i] <= end && (next < 0 || mTimes[i] < mTimes[next]))
+                {
+                    next = i;
+                }
+            }
+            if (next < 0)
+            {
+                break;
+            }
+
+            final Runnable runnable = mRunnables[next];
+            mNow = Math.max(mNow, mTimes[next]);
+            removeAt(next);
+            runnable.run();
+        }
+        mNow = end;
+    }
+}
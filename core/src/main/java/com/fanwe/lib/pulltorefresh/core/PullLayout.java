@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 根据拖动状态计算child布局位置，和平台无关
+ */
+public final class PullLayout
+{
+    private PullLayout()
+    {
+    }
+
+    /**
+     * 返回HeaderView布局的top值
+     *
+     * @param topReset      HeaderView的Reset静止状态下top值
+     * @param currentTop    HeaderView当前显示的top值
+     * @param refreshHeight HeaderView触发刷新的高度
+     * @param state         {@link PullState#STATE_RESET}...
+     * @param direction     {@link PullState#DIRECTION_NONE}...
+     * @param isDragIdle    是否没有在拖动或者滚动
+     * @return
+     */
+    public static int getTopLayoutHeaderView(int topReset, int currentTop, int refreshHeight,
+                                             int state, int direction, boolean isDragIdle)
+    {
+        int top = topReset;
+        if (direction == PullState.DIRECTION_FROM_HEADER)
+        {
+            if (isDragIdle)
+            {
+                if (PullState.isRefreshPosition(state))
+                {
+                    top += refreshHeight;
+                }
+            } else
+            {
+                top = currentTop;
+            }
+        }
+        return top;
+    }
+
+    /**
+     * 返回FooterView布局的top值
+     *
+     * @param topReset      FooterView的Reset静止状态下top值
+     * @param currentTop    FooterView当前显示的top值
+     * @param refreshHeight FooterView触发刷新的高度
+     * @param state         {@link PullState#STATE_RESET}...
+     * @param direction     {@link PullState#DIRECTION_NONE}...
+     * @param isDragIdle    是否没有在拖动或者滚动
+     * @return
+     */
+    public static int getTopLayoutFooterView(int topReset, int currentTop, int refreshHeight,
+                                             int state, int direction, boolean isDragIdle)
+    {
+        int top = topReset;
+        if (direction == PullState.DIRECTION_FROM_FOOTER)
+        {
+            if (isDragIdle)
+            {
+                if (PullState.isRefreshPosition(state))
+                {
+                    top -= refreshHeight;
+                }
+            } else
+            {
+                top = currentTop;
+            }
+        }
+        return top;
+    }
+
+    /**
+     * 返回RefreshView布局的top值
+     *
+     * @param topAlignTop         与父view顶部对齐的值
+     * @param currentTop          RefreshView当前显示的top值
+     * @param headerRefreshHeight HeaderView触发刷新的高度
+     * @param footerRefreshHeight FooterView触发刷新的高度
+     * @param state               {@link PullState#STATE_RESET}...
+     * @param direction           {@link PullState#DIRECTION_NONE}...
+     * @param isDragIdle          是否没有在拖动或者滚动
+     * @param isOverLayMode       是否是覆盖的模式
+     * @return
+     */
+    public static int getTopLayoutRefreshView(int topAlignTop, int currentTop, int headerRefreshHeight, int footerRefreshHeight,
+                                              int state, int direction, boolean isDragIdle, boolean isOverLayMode)
+    {
+        int top = topAlignTop;
+        if (isOverLayMode)
+        {
+            return top;
+        }
+
+        if (isDragIdle)
+        {
+            if (PullState.isRefreshPosition(state))
+            {
+                if (direction == PullState.DIRECTION_FROM_HEADER)
+                {
+                    top += headerRefreshHeight;
+                } else if (direction == PullState.DIRECTION_FROM_FOOTER)
+                {
+                    top -= footerRefreshHeight;
+                }
+            }
+        } else
+        {
+            top = currentTop;
+        }
+        return top;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 拖动状态和拖动方向的常量，和平台无关<br>
+ * 常量的值和ISDPullToRefreshView.State，ISDPullToRefreshView.Direction的ordinal()一致
+ */
+public final class PullState
+{
+    private PullState()
+    {
+    }
+
+    public static final int STATE_RESET = 0;
+    public static final int STATE_PULL_TO_REFRESH = 1;
+    public static final int STATE_RELEASE_TO_REFRESH = 2;
+    public static final int STATE_REFRESHING = 3;
+    public static final int STATE_REFRESH_SUCCESS = 4;
+    public static final int STATE_REFRESH_FAILURE = 5;
+    public static final int STATE_REFRESH_FINISH = 6;
+
+    public static final int DIRECTION_NONE = 0;
+    public static final int DIRECTION_FROM_HEADER = 1;
+    public static final int DIRECTION_FROM_FOOTER = 2;
+
+    /**
+     * 该状态下静止的时候是否停留在显示加载view的位置
+     *
+     * @param state
+     * @return
+     */
+    public static boolean isRefreshPosition(int state)
+    {
+        switch (state)
+        {
+            case STATE_REFRESHING:
+            case STATE_REFRESH_SUCCESS:
+            case STATE_REFRESH_FAILURE:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 拖动状态和拖动方向的状态机，和平台无关<br>
+ * 状态和方向的取值见{@link PullState}，延迟任务通过{@link Scheduler}执行，可以在jvm上模拟手势
+ */
+public class PullStateMachine
+{
+    private final Clock mClock;
+    private final Scheduler mScheduler;
+    private final Callback mCallback;
+
+    private int mState = PullState.STATE_RESET;
+    private int mDirection = PullState.DIRECTION_NONE;
+    private int mLastDirection = PullState.DIRECTION_NONE;
+    private long mStateChangedTime;
+
+    /**
+     * 显示刷新结果的时长
+     */
+    private long mDurationShowRefreshResult;
+
+    private final Runnable mShowRefreshResultRunnable = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            mCallback.onShowRefreshResultFinish();
+        }
+    };
+
+    public PullStateMachine(Clock clock, Scheduler scheduler, Callback callback)
+    {
+        if (clock == null || scheduler == null || callback == null)
+        {
+            throw new IllegalArgumentException("clock, scheduler and callback must not be null");
+        }
+        mClock = clock;
+        mScheduler = scheduler;
+        mCallback = callback;
+        mStateChangedTime = clock.uptimeMillis();
+    }
+
+    /**
+     * 设置显示刷新结果的时长
+     *
+     * @param durationShowRefreshResult
+     */
+    public void setDurationShowRefreshResult(long durationShowRefreshResult)
+    {
+        mDurationShowRefreshResult = durationShowRefreshResult;
+    }
+
+    public int getState()
+    {
+        return mState;
+    }
+
+    /**
+     * 返回当前拖动方向，状态变为{@link PullState#STATE_RESET}之后为{@link PullState#DIRECTION_NONE}
+     *
+     * @return
+     */
+    public int getDirection()
+    {
+        return mDirection;
+    }
+
+    /**
+     * 返回最后一次拖动方向，状态变为{@link PullState#STATE_RESET}之后保持不变
+     *
+     * @return
+     */
+    public int getLastDirection()
+    {
+        return mLastDirection;
+    }
+
+    /**
+     * 返回当前状态持续的时长（毫秒）
+     *
+     * @return
+     */
+    public long getStateDuration()
+    {
+        return mClock.uptimeMillis() - mStateChangedTime;
+    }
+
+    /**
+     * 设置状态
+     *
+     * @param state
+     */
+    public void setState(int state)
+    {
+        if (mState == state)
+        {
+            return;
+        }
+
+        final int oldState = mState;
+        mState = state;
+        mStateChangedTime = mClock.uptimeMillis();
+
+        mScheduler.cancel(mShowRefreshResultRunnable);
+        if (state == PullState.STATE_REFRESH_SUCCESS || state == PullState.STATE_REFRESH_FAILURE)
+        {
+            mScheduler.schedule(mShowRefreshResultRunnable, mDurationShowRefreshResult);
+        }
+
+        mCallback.onStateChanged(state, oldState);
+
+        if (state == PullState.STATE_RESET)
+        {
+            setDirection(PullState.DIRECTION_NONE);
+        }
+    }
+
+    /**
+     * 设置拖动方向，只有当前方向为{@link PullState#DIRECTION_NONE}的时候才可以设置为其他方向
+     *
+     * @param direction
+     */
+    public void setDirection(int direction)
+    {
+        if (mDirection == direction)
+        {
+            return;
+        }
+        if (direction != PullState.DIRECTION_NONE)
+        {
+            if (mDirection == PullState.DIRECTION_NONE)
+            {
+                mDirection = direction;
+                mLastDirection = direction;
+                mCallback.onDirectionChanged(direction);
+            }
+        } else
+        {
+            mDirection = PullState.DIRECTION_NONE;
+            mCallback.onDirectionChanged(direction);
+        }
+    }
+
+    /**
+     * 根据拖动方向设置方向
+     *
+     * @param dy 从按下到当前的y方向移动距离
+     */
+    public void setDirectionByMove(float dy)
+    {
+        if (dy > 0)
+        {
+            setDirection(PullState.DIRECTION_FROM_HEADER);
+        } else if (dy < 0)
+        {
+            setDirection(PullState.DIRECTION_FROM_FOOTER);
+        }
+    }
+
+    /**
+     * 拖动距离变化后更新状态
+     *
+     * @param canRefresh 拖动距离是否可以触发刷新
+     */
+    public void updateStateByMoveDistance(boolean canRefresh)
+    {
+        setState(canRefresh ? PullState.STATE_RELEASE_TO_REFRESH : PullState.STATE_PULL_TO_REFRESH);
+    }
+
+    /**
+     * 松手
+     *
+     * @param refreshByFling 拖动距离不够的时候是否可以通过松手速度触发刷新
+     */
+    public void onRelease(boolean refreshByFling)
+    {
+        if (mState == PullState.STATE_RELEASE_TO_REFRESH
+                || (mState == PullState.STATE_PULL_TO_REFRESH && refreshByFling))
+        {
+            setState(PullState.STATE_REFRESHING);
+        }
+    }
+
+    /**
+     * 拖动和滚动都结束，view静止
+     */
+    public void onIdle()
+    {
+        switch (mState)
+        {
+            case PullState.STATE_REFRESHING:
+                mCallback.onRefresh(mLastDirection);
+                break;
+            case PullState.STATE_PULL_TO_REFRESH:
+            case PullState.STATE_REFRESH_FINISH:
+                setState(PullState.STATE_RESET);
+                break;
+        }
+    }
+
+    /**
+     * 开始刷新
+     *
+     * @param direction {@link PullState#DIRECTION_FROM_HEADER} {@link PullState#DIRECTION_FROM_FOOTER}
+     * @return true-状态变为刷新中，需要滚动view
+     */
+    public boolean startRefreshing(int direction)
+    {
+        if (mState != PullState.STATE_RESET)
+        {
+            return false;
+        }
+        setDirection(direction);
+        setState(PullState.STATE_REFRESHING);
+        return true;
+    }
+
+    /**
+     * 停止刷新
+     *
+     * @return true-状态变为刷新完成，需要滚动view
+     */
+    public boolean stopRefreshing()
+    {
+        if (mState == PullState.STATE_RESET || mState == PullState.STATE_REFRESH_FINISH)
+        {
+            return false;
+        }
+        setState(PullState.STATE_REFRESH_FINISH);
+        return true;
+    }
+
+    /**
+     * 设置刷新结果，显示一段时间后回调{@link Callback#onShowRefreshResultFinish()}
+     *
+     * @param success
+     */
+    public void stopRefreshingWithResult(boolean success)
+    {
+        if (mState == PullState.STATE_REFRESHING)
+        {
+            setState(success ? PullState.STATE_REFRESH_SUCCESS : PullState.STATE_REFRESH_FAILURE);
+        }
+    }
+
+    /**
+     * 取消还没有执行的延迟任务
+     */
+    public void cancelPending()
+    {
+        mScheduler.cancel(mShowRefreshResultRunnable);
+    }
+
+    public interface Callback
+    {
+        /**
+         * 状态变化回调
+         *
+         * @param newState
+         * @param oldState
+         */
+        void onStateChanged(int newState, int oldState);
+
+        /**
+         * 方向变化回调
+         *
+         * @param direction
+         */
+        void onDirectionChanged(int direction);
+
+        /**
+         * 滚动到刷新位置后，需要通知刷新回调
+         *
+         * @param direction
+         */
+        void onRefresh(int direction);
+
+        /**
+         * 刷新结果显示的时长到了，一般调用{@link PullStateMachine#stopRefreshing()}后滚动view
+         */
+        void onShowRefreshResultFinish();
+    }
+}
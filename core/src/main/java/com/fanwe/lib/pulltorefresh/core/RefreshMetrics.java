@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 刷新耗时和手势结果统计，和平台无关<br>
+ * 按拖动方向分别统计，所有数据保存在预先分配好的数组中，记录的时候不分配对象；
+ * 可以在其他线程调用{@link #copyTo(RefreshMetrics)}复制到自己保存的快照对象中再上报
+ */
+public class RefreshMetrics
+{
+    /**
+     * 按下到开始刷新，只统计拖动触发的刷新
+     */
+    public static final int TIMING_DOWN_TO_REFRESHING = 0;
+    /**
+     * 开始刷新到停止刷新（stopRefreshing或者stopRefreshingWithResult）
+     */
+    public static final int TIMING_REFRESHING_TO_STOP = 1;
+    /**
+     * 刷新完成到回到Reset状态
+     */
+    public static final int TIMING_FINISH_TO_RESET = 2;
+
+    public static final int TIMING_COUNT = 3;
+
+    /**
+     * 拖动后没有触发刷新就回到Reset状态
+     */
+    public static final int OUTCOME_ABANDONED = 0;
+    /**
+     * 刷新成功
+     */
+    public static final int OUTCOME_SUCCESS = 1;
+    /**
+     * 刷新失败
+     */
+    public static final int OUTCOME_FAILURE = 2;
+    /**
+     * 没有设置刷新结果直接停止刷新
+     */
+    public static final int OUTCOME_FINISH = 3;
+
+    public static final int OUTCOME_COUNT = 4;
+
+    /**
+     * 统计的方向数量：{@link PullState#DIRECTION_FROM_HEADER}，{@link PullState#DIRECTION_FROM_FOOTER}
+     */
+    private static final int DIRECTION_COUNT = 2;
+
+    private final Histogram[] mHistograms = new Histogram[DIRECTION_COUNT * TIMING_COUNT];
+    private final long[] mOutcomes = new long[DIRECTION_COUNT * OUTCOME_COUNT];
+
+    private long mDownTime = -1;
+    private long mRefreshingTime = -1;
+    private long mFinishTime = -1;
+    private boolean mHasRefreshing;
+
+    public RefreshMetrics()
+    {
+        for (int i = 0; i < mHistograms.length; i++)
+        {
+            mHistograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * 按下
+     *
+     * @param time 毫秒
+     */
+    public synchronized void onTouchDown(long time)
+    {
+        mDownTime = time;
+    }
+
+    /**
+     * 状态变化
+     *
+     * @param newState  {@link PullState#STATE_RESET}...
+     * @param oldState
+     * @param direction 当前的拖动方向
+     * @param time      毫秒
+     */
+    public synchronized void onStateChanged(int newState, int oldState, int direction, long time)
+    {
+        final int slot = getDirectionSlot(direction);
+        if (slot < 0)
+        {
+            return;
+        }
+
+        switch (newState)
+        {
+            case PullState.STATE_REFRESHING:
+                if (mDownTime >= 0
+                        && (oldState == PullState.STATE_PULL_TO_REFRESH || oldState == PullState.STATE_RELEASE_TO_REFRESH))
+                {
+                    record(slot, TIMING_DOWN_TO_REFRESHING, time - mDownTime);
+                }
+                mRefreshingTime = time;
+                mHasRefreshing = true;
+                break;
+            case PullState.STATE_REFRESH_SUCCESS:
+            case PullState.STATE_REFRESH_FAILURE:
+            case PullState.STATE_REFRESH_FINISH:
+                if (oldState == PullState.STATE_REFRESHING)
+                {
+                    record(slot, TIMING_REFRESHING_TO_STOP, time - mRefreshingTime);
+                    mOutcomes[slot * OUTCOME_COUNT + getOutcome(newState)]++;
+                }
+                if (newState == PullState.STATE_REFRESH_FINISH)
+                {
+                    mFinishTime = time;
+                }
+                break;
+            case PullState.STATE_RESET:
+                if (oldState == PullState.STATE_REFRESH_FINISH && mFinishTime >= 0)
+                {
+                    record(slot, TIMING_FINISH_TO_RESET, time - mFinishTime);
+                }
+                if (!mHasRefreshing)
+                {
+                    mOutcomes[slot * OUTCOME_COUNT + OUTCOME_ABANDONED]++;
+                }
+                mDownTime = -1;
+                mRefreshingTime = -1;
+                mFinishTime = -1;
+                mHasRefreshing = false;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static int getOutcome(int state)
+    {
+        switch (state)
+        {
+            case PullState.STATE_REFRESH_SUCCESS:
+                return OUTCOME_SUCCESS;
+            case PullState.STATE_REFRESH_FAILURE:
+                return OUTCOME_FAILURE;
+            default:
+                return OUTCOME_FINISH;
+        }
+    }
+
+    private static int getDirectionSlot(int direction)
+    {
+        switch (direction)
+        {
+            case PullState.DIRECTION_FROM_HEADER:
+                return 0;
+            case PullState.DIRECTION_FROM_FOOTER:
+                return 1;
+            default:
+                return -1;
+        }
+    }
+
+    private void record(int slot, int timing, long value)
+    {
+        mHistograms[slot * TIMING_COUNT + timing].record(value);
+    }
+
+    /**
+     * 返回耗时统计，返回的对象会继续被修改，需要在其他线程读取的时候先调用{@link #copyTo(RefreshMetrics)}
+     *
+     * @param direction {@link PullState#DIRECTION_FROM_HEADER}，{@link PullState#DIRECTION_FROM_FOOTER}
+     * @param timing    {@link #TIMING_DOWN_TO_REFRESHING}...
+     * @return
+     */
+    public Histogram getHistogram(int direction, int timing)
+    {
+        final int slot = getDirectionSlot(direction);
+        if (slot < 0)
+        {
+            throw new IllegalArgumentException("illegal direction:" + direction);
+        }
+        return mHistograms[slot * TIMING_COUNT + timing];
+    }
+
+    /**
+     * 返回手势结果的次数
+     *
+     * @param direction {@link PullState#DIRECTION_FROM_HEADER}，{@link PullState#DIRECTION_FROM_FOOTER}
+     * @param outcome   {@link #OUTCOME_ABANDONED}...
+     * @return
+     */
+    public synchronized long getOutcomeCount(int direction, int outcome)
+    {
+        final int slot = getDirectionSlot(direction);
+        if (slot < 0)
+        {
+            throw new IllegalArgumentException("illegal direction:" + direction);
+        }
+        return mOutcomes[slot * OUTCOME_COUNT + outcome];
+    }
+
+    /**
+     * 把统计数据复制到快照对象中，不分配对象，快照对象由调用方持有，不要和其他线程共享
+     *
+     * @param snapshot
+     */
+    public synchronized void copyTo(RefreshMetrics snapshot)
+    {
+        for (int i = 0; i < mHistograms.length; i++)
+        {
+            mHistograms[i].copyTo(snapshot.mHistograms[i]);
+        }
+        System.arraycopy(mOutcomes, 0, snapshot.mOutcomes, 0, mOutcomes.length);
+    }
+
+    /**
+     * 清空统计数据，当前手势的状态保留
+     */
+    public synchronized void reset()
+    {
+        for (Histogram item : mHistograms)
+        {
+            item.reset();
+        }
+        for (int i = 0; i < mOutcomes.length; i++)
+        {
+            mOutcomes[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 延迟任务调度
+ */
+public interface Scheduler
+{
+    /**
+     * 延迟执行任务
+     *
+     * @param runnable
+     * @param delayMillis
+     */
+    void schedule(Runnable runnable, long delayMillis);
+
+    /**
+     * 取消任务
+     *
+     * @param runnable
+     */
+    void cancel(Runnable runnable);
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 基于阻尼弹簧的滚动计算<br>
+ * 每一段运动都用解析解计算位置和速度，结果只和时间有关，和帧率无关；运动过程中可以随时修改目标位置，修改后从当前的位置和速度继续运动
+ */
+public class SpringScroller
+{
+    /**
+     * 距离目标位置小于这个值（像素）并且速度足够小的时候结束
+     */
+    private static final float POSITION_THRESHOLD = 0.5f;
+    /**
+     * 速度小于这个值（像素/秒）并且距离足够小的时候结束
+     */
+    private static final float VELOCITY_THRESHOLD = 5f;
+
+    private static final float NANOS_PER_SECOND = 1000000000f;
+
+    private boolean mIsFinished = true;
+
+    private float mFinal;
+    private float mCurrPosition;
+    private float mCurrVelocity;
+
+    /**
+     * 当前这一段运动开始的时间
+     */
+    private long mStartTimeNanos;
+    /**
+     * 当前这一段运动开始的时候相对目标位置的偏移
+     */
+    private float mStartOffset;
+    /**
+     * 当前这一段运动开始的速度
+     */
+    private float mStartVelocity;
+
+    private float mNaturalFreq;
+    private float mDampingRatio;
+
+    /**
+     * 开始运动
+     *
+     * @param start        开始位置
+     * @param end          目标位置
+     * @param velocity     开始速度（像素/秒）
+     * @param stiffness    弹簧刚度
+     * @param dampingRatio 阻尼比，1-临界阻尼，小于1会回弹
+     * @param nowNanos     当前时间
+     */
+    public void start(float start, float end, float velocity, float stiffness, float dampingRatio, long nowNanos)
+    {
+        mCurrPosition = start;
+        mCurrVelocity = velocity;
+        startSegment(end, stiffness, dampingRatio, nowNanos);
+    }
+
+    /**
+     * 运动过程中修改目标位置，从当前的位置和速度继续运动，如果已经结束则从当前位置开始新的运动
+     *
+     * @param end          新的目标位置
+     * @param stiffness    弹簧刚度
+     * @param dampingRatio 阻尼比
+     * @param nowNanos     当前时间
+     */
+    public void retarget(float end, float stiffness, float dampingRatio, long nowNanos)
+    {
+        if (!mIsFinished)
+        {
+            compute(nowNanos);
+        }
+        startSegment(end, stiffness, dampingRatio, nowNanos);
+    }
+
+    private void startSegment(float end, float stiffness, float dampingRatio, long nowNanos)
+    {
+        if (stiffness <= 0)
+        {
+            throw new IllegalArgumentException("stiffness must be > 0");
+        }
+        if (dampingRatio <= 0)
+        {
+            throw new IllegalArgumentException("dampingRatio must be > 0");
+        }
+
+        mFinal = end;
+        mStartTimeNanos = nowNanos;
+        mStartOffset = mCurrPosition - end;
+        mStartVelocity = mCurrVelocity;
+        mNaturalFreq = (float) Math.sqrt(stiffness);
+        mDampingRatio = dampingRatio;
+        mIsFinished = isAtRest(mStartOffset, mStartVelocity);
+        if (mIsFinished)
+        {
+            mCurrPosition = end;
+            mCurrVelocity = 0;
+        }
+    }
+
+    /**
+     * 计算当前时间的位置
+     *
+     * @param nowNanos
+     * @return true-还在运动中
+     */
+    public boolean computeScrollOffset(long nowNanos)
+    {
+        if (mIsFinished)
+        {
+            return false;
+        }
+        compute(nowNanos);
+        if (isAtRest(mCurrPosition - mFinal, mCurrVelocity))
+        {
+            mCurrPosition = mFinal;
+            mCurrVelocity = 0;
+            mIsFinished = true;
+        }
+        return true;
+    }
+
+    private void compute(long nowNanos)
+    {
+        float t = (nowNanos - mStartTimeNanos) / NANOS_PER_SECOND;
+        if (t < 0)
+        {
+            t = 0;
+        }
+
+        final float x0 = mStartOffset;
+        final float v0 = mStartVelocity;
+        final float w0 = mNaturalFreq;
+        final float zeta = mDampingRatio;
+
+        final double x;
+        final double v;
+        if (zeta < 1)
+        {
+            // 欠阻尼
+            final double wd = w0 * Math.sqrt(1 - zeta * zeta);
+            final double decay = Math.exp(-zeta * w0 * t);
+            final double cos = Math.cos(wd * t);
+            final double sin = Math.sin(wd * t);
+            final double b = (v0 + zeta * w0 * x0) / wd;
+            x = decay * (x0 * cos + b * sin);
+            v = decay * ((b * wd - zeta * w0 * x0) * cos - (x0 * wd + zeta * w0 * b) * sin);
+        } else if (zeta == 1)
+        {
+            // 临界阻尼
+            final double decay = Math.exp(-w0 * t);
+            final double b = v0 + w0 * x0;
+            x = (x0 + b * t) * decay;
+            v = (b - w0 * (x0 + b * t)) * decay;
+        } else
+        {
+            // 过阻尼
+            final double root = w0 * Math.sqrt(zeta * zeta - 1);
+            final double r1 = -zeta * w0 + root;
+            final double r2 = -zeta * w0 - root;
+            final double c2 = (v0 - r1 * x0) / (r2 - r1);
+            final double c1 = x0 - c2;
+            final double e1 = Math.exp(r1 * t);
+            final double e2 = Math.exp(r2 * t);
+            x = c1 * e1 + c2 * e2;
+            v = c1 * r1 * e1 + c2 * r2 * e2;
+        }
+
+        mCurrPosition = (float) (mFinal + x);
+        mCurrVelocity = (float) v;
+    }
+
+    private static boolean isAtRest(float offset, float velocity)
+    {
+        return Math.abs(offset) < POSITION_THRESHOLD && Math.abs(velocity) < VELOCITY_THRESHOLD;
+    }
+
+    /**
+     * 停止运动，位置停留在目标位置
+     */
+    public void abortAnimation()
+    {
+        mCurrPosition = mFinal;
+        mCurrVelocity = 0;
+        mIsFinished = true;
+    }
+
+    public boolean isFinished()
+    {
+        return mIsFinished;
+    }
+
+    public int getCurrY()
+    {
+        return Math.round(mCurrPosition);
+    }
+
+    public float getCurrPosition()
+    {
+        return mCurrPosition;
+    }
+
+    /**
+     * 返回当前速度（像素/秒）
+     *
+     * @return
+     */
+    public float getCurrVelocity()
+    {
+        return mCurrVelocity;
+    }
+
+    public int getFinalY()
+    {
+        return Math.round(mFinal);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 触摸移动的计算，和平台无关
+ */
+public final class TouchMath
+{
+    private TouchMath()
+    {
+    }
+
+    /**
+     * 返回角度正切值的平方
+     *
+     * @param degree 角度[0-90)
+     * @return
+     */
+    public static float getTanSquared(double degree)
+    {
+        final double tan = Math.tan(Math.toRadians(degree));
+        return (float) (tan * tan);
+    }
+
+    /**
+     * 返回移动方向和x轴的夹角
+     *
+     * @param dx
+     * @param dy
+     * @return
+     */
+    public static double getDegreeX(float dx, float dy)
+    {
+        if (dx == 0)
+        {
+            return 0;
+        }
+        final float angle = Math.abs(dy) / Math.abs(dx);
+        return Math.toDegrees(Math.atan(angle));
+    }
+
+    /**
+     * 返回移动方向和y轴的夹角
+     *
+     * @param dx
+     * @param dy
+     * @return
+     */
+    public static double getDegreeY(float dx, float dy)
+    {
+        if (dy == 0)
+        {
+            return 0;
+        }
+        final float angle = Math.abs(dx) / Math.abs(dy);
+        return Math.toDegrees(Math.atan(angle));
+    }
+
+    /**
+     * 移动方向和y轴的夹角是否小于指定的角度，结果和{@link #getDegreeY(float, float)}小于指定角度一致，通过比较斜率的平方判断，不需要计算反三角函数
+     *
+     * @param dx
+     * @param dy
+     * @param tanSquaredMax 指定角度正切值的平方，可以通过{@link #getTanSquared(double)}预先计算
+     * @return
+     */
+    public static boolean isDegreeYLessThan(float dx, float dy, float tanSquaredMax)
+    {
+        if (dy == 0)
+        {
+            return true;
+        }
+        return dx * dx < tanSquaredMax * dy * dy;
+    }
+
+    /**
+     * 移动距离是否超过触发拖动的最小距离
+     *
+     * @param delta
+     * @param touchSlop
+     * @return
+     */
+    public static boolean isOverSlop(float delta, int touchSlop)
+    {
+        return Math.abs(delta) > touchSlop;
+    }
+}
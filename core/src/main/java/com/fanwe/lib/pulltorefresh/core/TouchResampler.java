@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 触摸点重采样<br>
+ * 保存最近的触摸点（包括MotionEvent中批量的历史触摸点），按照帧的时间在相邻的两个触摸点之间插值，
+ * 触摸点的频率比屏幕刷新率高或者不同步的时候，每一帧的移动距离更均匀
+ */
+public class TouchResampler
+{
+    /**
+     * 重采样的时间比帧的时间提前的时长，保证大部分情况下可以在两个真实的触摸点之间插值
+     */
+    public static final long RESAMPLE_LATENCY_NANOS = 5 * 1000000L;
+    /**
+     * 最多向后预测的时长
+     */
+    public static final long RESAMPLE_MAX_PREDICTION_NANOS = 8 * 1000000L;
+    /**
+     * 两个触摸点时间间隔小于这个值的时候不插值
+     */
+    public static final long RESAMPLE_MIN_DELTA_NANOS = 2 * 1000000L;
+
+    private static final int SAMPLE_COUNT = 2;
+
+    private final long[] mTimes = new long[SAMPLE_COUNT];
+    private final float[] mValues = new float[SAMPLE_COUNT];
+    /**
+     * 最新的触摸点的位置
+     */
+    private int mIndex;
+    private int mCount;
+
+    /**
+     * 清空所有触摸点
+     */
+    public void reset()
+    {
+        mIndex = 0;
+        mCount = 0;
+    }
+
+    /**
+     * 添加触摸点，时间必须递增
+     *
+     * @param timeNanos
+     * @param value
+     */
+    public void addSample(long timeNanos, float value)
+    {
+        if (mCount > 0 && timeNanos <= mTimes[mIndex])
+        {
+            // 时间相同的触摸点只保留最新的
+            mValues[mIndex] = value;
+            return;
+        }
+
+        mIndex = (mIndex + 1) % SAMPLE_COUNT;
+        mTimes[mIndex] = timeNanos;
+        mValues[mIndex] = value;
+        if (mCount < SAMPLE_COUNT)
+        {
+            mCount++;
+        }
+    }
+
+    public boolean hasSample()
+    {
+        return mCount > 0;
+    }
+
+    /**
+     * 返回最新的触摸点
+     *
+     * @return
+     */
+    public float getLatest()
+    {
+        return mValues[mIndex];
+    }
+
+    /**
+     * 返回指定帧时间的重采样位置
+     *
+     * @param frameTimeNanos
+     * @return
+     */
+    public float resample(long frameTimeNanos)
+    {
+        final float latest = mValues[mIndex];
+        if (mCount < 2)
+        {
+            return latest;
+        }
+
+        final int previousIndex = (mIndex + SAMPLE_COUNT - 1) % SAMPLE_COUNT;
+        final long previousTime = mTimes[previousIndex];
+        final long latestTime = mTimes[mIndex];
+        final long delta = latestTime - previousTime;
+        if (delta < RESAMPLE_MIN_DELTA_NANOS)
+        {
+            return latest;
+        }
+
+        long sampleTime = frameTimeNanos - RESAMPLE_LATENCY_NANOS;
+        if (sampleTime <= previousTime)
+        {
+            // 不往回插值，避免位置后退
+            return latest;
+        }
+        if (sampleTime > latestTime)
+        {
+            // 预测最多不超过两个触摸点间隔的一半
+            final long maxPredict = latestTime + Math.min(delta / 2, RESAMPLE_MAX_PREDICTION_NANOS);
+            if (sampleTime > maxPredict)
+            {
+                sampleTime = maxPredict;
+            }
+        }
+
+        final float alpha = (float) (sampleTime - previousTime) / delta;
+        return mValues[previousIndex] + (latest - mValues[previousIndex]) * alpha;
+    }
+}
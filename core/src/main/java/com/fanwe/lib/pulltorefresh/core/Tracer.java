@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.core;
+
+/**
+ * 耗时区间记录接口<br>
+ * {@link #beginSection(String)}和{@link #endSection()}必须在同一个线程中成对调用，可以嵌套；
+ * 区间名称使用下面的常量，同一个区间在设备和jvm上的名称一致
+ */
+public interface Tracer
+{
+    String SECTION_MEASURE = "PullToRefresh:onMeasure";
+    String SECTION_LAYOUT = "PullToRefresh:onLayout";
+    String SECTION_COMPUTE_SCROLL = "PullToRefresh:computeScroll";
+    String SECTION_SET_STATE = "PullToRefresh:setState";
+    String SECTION_REFRESH_CALLBACK = "PullToRefresh:notifyRefreshCallback";
+    String SECTION_LOADING_VIEW_STATE_CHANGED = "PullToRefresh:LoadingView.onStateChanged";
+    String SECTION_LOADING_VIEW_POSITION_CHANGED = "PullToRefresh:LoadingView.onViewPositionChanged";
+
+    /**
+     * 开始一个区间
+     *
+     * @param name 区间名称
+     */
+    void beginSection(String name);
+
+    /**
+     * 结束最近开始的区间
+     */
+    void endSection();
+}
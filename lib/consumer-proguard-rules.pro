@@ -0,0 +1,9 @@
+# @DefaultHeaderView，@DefaultFooterView生成的工厂，LoadingViewRegistry第一次使用时通过类名加载
+-keep class com.fanwe.lib.pulltorefresh.generated.GeneratedLoadingViewFactory {
+    public <init>();
+}
+
+# 字符串资源lib_ptr_header_class，lib_ptr_footer_class中配置的加载view通过类名反射创建
+-keep public class * extends com.fanwe.lib.pulltorefresh.loadingview.SDPullToRefreshLoadingView {
+    public <init>(android.content.Context);
+}
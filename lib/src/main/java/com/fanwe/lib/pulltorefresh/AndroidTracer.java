@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.os.Build;
+import android.os.Trace;
+
+import com.fanwe.lib.pulltorefresh.core.Tracer;
+
+/**
+ * 把区间转发给{@link Trace}，可以在systrace或者Perfetto中和系统的绘制区间显示在同一个时间轴上，API 18以下不记录
+ */
+public class AndroidTracer implements Tracer
+{
+    @Override
+    public void beginSection(String name)
+    {
+        if (Build.VERSION.SDK_INT >= 18)
+        {
+            Trace.beginSection(name);
+        }
+    }
+
+    @Override
+    public void endSection()
+    {
+        if (Build.VERSION.SDK_INT >= 18)
+        {
+            Trace.endSection();
+        }
+    }
+}
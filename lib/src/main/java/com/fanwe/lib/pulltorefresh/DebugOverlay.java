@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * 调试模式下在view上绘制的性能信息<br>
+ * 显示状态，方向，滚动距离，拖动速度，上一帧的耗时和每秒布局次数；画笔和字符缓冲区都预先分配，绘制的时候不分配对象
+ */
+class DebugOverlay
+{
+    private static final float TEXT_SIZE_SP = 11;
+    private static final float PADDING_DP = 4;
+    private static final int LINE_COUNT = 6;
+    private static final int TEXT_COLOR = 0xFFFFFFFF;
+    private static final int BACKGROUND_COLOR = 0x99000000;
+
+    private static final char[] LABEL_STATE = "state: ".toCharArray();
+    private static final char[] LABEL_DIRECTION = "direction: ".toCharArray();
+    private static final char[] LABEL_SCROLL_DISTANCE = "scroll: ".toCharArray();
+    private static final char[] LABEL_VELOCITY = "velocity: ".toCharArray();
+    private static final char[] LABEL_FRAME_TIME = "frame ms: ".toCharArray();
+    private static final char[] LABEL_LAYOUTS_PER_SECOND = "layout/s: ".toCharArray();
+
+    /**
+     * 统计每秒布局次数的时间窗口
+     */
+    private static final long LAYOUT_WINDOW_MILLIS = 1000;
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBackgroundPaint = new Paint();
+    private final float mPadding;
+
+    private final char[] mChars = new char[64];
+    private int mLength;
+
+    private long mLastDrawTime = -1;
+    private long mFrameTime;
+
+    private long mLayoutWindowStart = -1;
+    private int mLayoutCount;
+    private int mLayoutsPerSecond;
+
+    public DebugOverlay(Context context)
+    {
+        final float density = context.getResources().getDisplayMetrics().density;
+        final float scaledDensity = context.getResources().getDisplayMetrics().scaledDensity;
+        mPadding = PADDING_DP * density;
+        mTextPaint.setColor(TEXT_COLOR);
+        mTextPaint.setTextSize(TEXT_SIZE_SP * scaledDensity);
+        mBackgroundPaint.setColor(BACKGROUND_COLOR);
+    }
+
+    /**
+     * 布局的时候调用
+     *
+     * @param now 毫秒
+     */
+    public void onLayout(long now)
+    {
+        if (mLayoutWindowStart < 0)
+        {
+            mLayoutWindowStart = now;
+        }
+        mLayoutCount++;
+
+        final long elapsed = now - mLayoutWindowStart;
+        if (elapsed >= LAYOUT_WINDOW_MILLIS)
+        {
+            mLayoutsPerSecond = (int) (mLayoutCount * 1000L / elapsed);
+            mLayoutCount = 0;
+            mLayoutWindowStart = now;
+        }
+    }
+
+    /**
+     * 清空帧和布局统计
+     */
+    public void reset()
+    {
+        mLastDrawTime = -1;
+        mFrameTime = 0;
+        mLayoutWindowStart = -1;
+        mLayoutCount = 0;
+        mLayoutsPerSecond = 0;
+    }
+
+    /**
+     * 绘制
+     *
+     * @param canvas
+     * @param drawingTime    当前帧的时间（毫秒）
+     * @param state
+     * @param direction
+     * @param scrollDistance
+     * @param velocity       拖动或者滚动的速度（像素/秒）
+     */
+    public void draw(Canvas canvas, long drawingTime, ISDPullToRefreshView.State state, ISDPullToRefreshView.Direction direction,
+                     int scrollDistance, float velocity)
+    {
+        if (mLastDrawTime >= 0 && drawingTime > mLastDrawTime)
+        {
+            mFrameTime = drawingTime - mLastDrawTime;
+        }
+        mLastDrawTime = drawingTime;
+
+        final float lineHeight = mTextPaint.getFontSpacing();
+        final float width = mTextPaint.measureText(LABEL_DIRECTION, 0, LABEL_DIRECTION.length) * 2.5f;
+        canvas.drawRect(0, 0, width + mPadding * 2, lineHeight * LINE_COUNT + mPadding * 2, mBackgroundPaint);
+
+        final float x = mPadding;
+        float y = mPadding - mTextPaint.ascent();
+
+        begin(LABEL_STATE);
+        append(state.name());
+        drawLine(canvas, x, y);
+        y += lineHeight;
+
+        begin(LABEL_DIRECTION);
+        append(direction.name());
+        drawLine(canvas, x, y);
+        y += lineHeight;
+
+        begin(LABEL_SCROLL_DISTANCE);
+        append(scrollDistance);
+        drawLine(canvas, x, y);
+        y += lineHeight;
+
+        begin(LABEL_VELOCITY);
+        append(Math.round(velocity));
+        drawLine(canvas, x, y);
+        y += lineHeight;
+
+        begin(LABEL_FRAME_TIME);
+        append(mFrameTime);
+        drawLine(canvas, x, y);
+        y += lineHeight;
+
+        begin(LABEL_LAYOUTS_PER_SECOND);
+        append(mLayoutsPerSecond);
+        drawLine(canvas, x, y);
+    }
+
+    private void drawLine(Canvas canvas, float x, float y)
+    {
+        canvas.drawText(mChars, 0, mLength, x, y, mTextPaint);
+    }
+
+    private void begin(char[] label)
+    {
+        System.arraycopy(label, 0, mChars, 0, label.length);
+        mLength = label.length;
+    }
+
+    private void append(String text)
+    {
+        final int count = Math.min(text.length(), mChars.length - mLength);
+        text.getChars(0, count, mChars, mLength);
+        mLength += count;
+    }
+
+    /**
+     * 把数字写入字符缓冲区，不创建字符串
+     *
+     * @param value
+     */
+    private void append(long value)
+    {
+        if (value < 0)
+        {
+            if (mLength < mChars.length)
+            {
+                mChars[mLength++] = '-';
+            }
+            value = -value;
+        }
+
+        final int start = mLength;
+        do
+        {
+            if (mLength >= mChars.length)
+            {
+                break;
+            }
+            mChars[mLength++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        // 倒序写入的，反转
+        for (int i = start, j = mLength - 1; i < j; i++, j--)
+        {
+            final char c = mChars[i];
+            mChars[i] = mChars[j];
+            mChars[j] = c;
+        }
+    }
+}
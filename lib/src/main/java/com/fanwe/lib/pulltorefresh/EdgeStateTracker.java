@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * 缓存RefreshView是否滚动到顶部或者底部，以及设置的{@link ISDPullToRefreshView.IPullCondition}的判断结果<br>
+ * 只有在view树滚动或者重新布局，以及新的手势开始的时候才重新计算，同一次手势中多次判断直接返回缓存的结果；
+ * RecyclerView，AbsListView，ScrollView滚动的时候都会通知{@link ViewTreeObserver.OnScrollChangedListener}，不需要给每种view单独设置滚动监听；
+ * IPullCondition的结果如果不是因为滚动或者布局变化的，在下一次手势开始的时候才生效<br>
+ * OnScrollChangedListener是在绘制前通知的，view在处理触摸事件的时候滚动，要等到这一帧绘制的时候缓存才失效，
+ * 在这之前的判断返回的是滚动前的结果，最多晚一帧
+ */
+class EdgeStateTracker implements ViewTreeObserver.OnScrollChangedListener, ViewTreeObserver.OnGlobalLayoutListener
+{
+    private View mView;
+    private ISDPullToRefreshView.IPullCondition mPullCondition;
+
+    private ViewTreeObserver mViewTreeObserver;
+
+    private boolean mIsHeaderValid;
+    private boolean mCanPullFromHeader;
+
+    private boolean mIsFooterValid;
+    private boolean mCanPullFromFooter;
+
+    public void setView(View view)
+    {
+        mView = view;
+        invalidate();
+    }
+
+    public void setPullCondition(ISDPullToRefreshView.IPullCondition pullCondition)
+    {
+        mPullCondition = pullCondition;
+        invalidate();
+    }
+
+    /**
+     * 开始监听view树的滚动和布局变化
+     *
+     * @param observer
+     */
+    public void attach(ViewTreeObserver observer)
+    {
+        detach();
+        mViewTreeObserver = observer;
+        observer.addOnScrollChangedListener(this);
+        observer.addOnGlobalLayoutListener(this);
+        invalidate();
+    }
+
+    /**
+     * 停止监听
+     */
+    @SuppressWarnings("deprecation")
+    public void detach()
+    {
+        if (mViewTreeObserver != null)
+        {
+            if (mViewTreeObserver.isAlive())
+            {
+                mViewTreeObserver.removeOnScrollChangedListener(this);
+                mViewTreeObserver.removeGlobalOnLayoutListener(this);
+            }
+            mViewTreeObserver = null;
+        }
+        invalidate();
+    }
+
+    /**
+     * 清除缓存，下一次判断的时候重新计算
+     */
+    public void invalidate()
+    {
+        mIsHeaderValid = false;
+        mIsFooterValid = false;
+    }
+
+    /**
+     * RefreshView是否滚动到顶部，并且满足设置的拖动条件
+     *
+     * @return
+     */
+    public boolean canPullFromHeader()
+    {
+        if (!mIsHeaderValid || mViewTreeObserver == null)
+        {
+            mCanPullFromHeader = SDTouchHelper.isScrollToTop(mView)
+                    && (mPullCondition != null ? mPullCondition.canPullFromHeader() : true);
+            mIsHeaderValid = true;
+        }
+        return mCanPullFromHeader;
+    }
+
+    /**
+     * RefreshView是否滚动到底部，并且满足设置的拖动条件
+     *
+     * @return
+     */
+    public boolean canPullFromFooter()
+    {
+        if (!mIsFooterValid || mViewTreeObserver == null)
+        {
+            mCanPullFromFooter = SDTouchHelper.isScrollToBottom(mView)
+                    && (mPullCondition != null ? mPullCondition.canPullFromFooter() : true);
+            mIsFooterValid = true;
+        }
+        return mCanPullFromFooter;
+    }
+
+    @Override
+    public void onScrollChanged()
+    {
+        invalidate();
+    }
+
+    @Override
+    public void onGlobalLayout()
+    {
+        invalidate();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.util.Log;
+import android.view.MotionEvent;
+
+import com.fanwe.lib.pulltorefresh.core.GestureTraceWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 手势记录<br>
+ * 通过{@link SDPullToRefreshView#setGestureRecorder(GestureRecorder)}设置后，把SDPullToRefreshView收到的每个触摸事件（包括历史触摸点），
+ * 以及状态和位置变化写入二进制文件，格式见{@link GestureTraceWriter}，可以用{@link GestureReplayer}重放，
+ * 或者用com.fanwe.lib.pulltorefresh.core.GestureTraceDump转换为文本<br>
+ * 写入的时候先写入固定大小的缓存，不会为每个事件创建对象
+ */
+public class GestureRecorder
+{
+    private static final String TAG = "GestureRecorder";
+
+    private GestureTraceWriter mWriter;
+
+    /**
+     * 开始记录，如果正在记录则先停止
+     *
+     * @param outputStream
+     * @throws IOException
+     */
+    public void start(OutputStream outputStream) throws IOException
+    {
+        stop();
+        mWriter = new GestureTraceWriter(outputStream);
+    }
+
+    /**
+     * 停止记录并关闭输出流
+     */
+    public void stop()
+    {
+        if (mWriter != null)
+        {
+            try
+            {
+                mWriter.close();
+            } catch (IOException e)
+            {
+                Log.e(TAG, "close gesture trace error:" + e);
+            }
+            mWriter = null;
+        }
+    }
+
+    public boolean isRecording()
+    {
+        return mWriter != null;
+    }
+
+    void recordTouch(MotionEvent ev)
+    {
+        final GestureTraceWriter writer = mWriter;
+        if (writer == null)
+        {
+            return;
+        }
+
+        final int pointerCount = Math.min(ev.getPointerCount(), GestureTraceWriter.MAX_POINTER_COUNT);
+        final int historySize = ev.getHistorySize();
+        try
+        {
+            writer.writeTouchHeader(ev.getEventTime(), ev.getDownTime(), ev.getAction(), pointerCount, historySize,
+                    ev.getRawX() - ev.getX(), ev.getRawY() - ev.getY());
+            for (int p = 0; p < pointerCount; p++)
+            {
+                writer.writePointerId(ev.getPointerId(p));
+            }
+            for (int h = 0; h < historySize; h++)
+            {
+                writer.writeSampleTime(ev.getHistoricalEventTime(h));
+                for (int p = 0; p < pointerCount; p++)
+                {
+                    writer.writeSamplePosition(ev.getHistoricalX(p, h), ev.getHistoricalY(p, h));
+                }
+            }
+            writer.writeSampleTime(ev.getEventTime());
+            for (int p = 0; p < pointerCount; p++)
+            {
+                writer.writeSamplePosition(ev.getX(p), ev.getY(p));
+            }
+        } catch (IOException e)
+        {
+            onError(e);
+        }
+    }
+
+    void recordState(long time, int state, int direction)
+    {
+        if (mWriter == null)
+        {
+            return;
+        }
+        try
+        {
+            mWriter.writeState(time, state, direction);
+        } catch (IOException e)
+        {
+            onError(e);
+        }
+    }
+
+    void recordPosition(long time, int scrollDistance)
+    {
+        if (mWriter == null)
+        {
+            return;
+        }
+        try
+        {
+            mWriter.writePosition(time, scrollDistance);
+        } catch (IOException e)
+        {
+            onError(e);
+        }
+    }
+
+    private void onError(IOException e)
+    {
+        Log.e(TAG, "write gesture trace error, recording stopped:" + e);
+        stop();
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.fanwe.lib.pulltorefresh.core.GestureTraceReader;
+import com.fanwe.lib.pulltorefresh.core.GestureTraceWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 重放{@link GestureRecorder}记录的手势<br>
+ * 按照记录的顺序把触摸事件（包括历史触摸点）分发给目标view，可以调用{@link #step(View)}逐个分发，
+ * 或者调用{@link #play(View)}按照记录的时间间隔分发；如果目标view是SDPullToRefreshView，分发下一个触摸事件前会检查状态是否和记录一致
+ */
+public class GestureReplayer
+{
+    private static final String TAG = "GestureReplayer";
+
+    private final GestureTraceReader mReader;
+
+    private final MotionEvent.PointerProperties[] mPointerProperties = new MotionEvent.PointerProperties[GestureTraceWriter.MAX_POINTER_COUNT];
+    private final MotionEvent.PointerCoords[] mPointerCoords = new MotionEvent.PointerCoords[GestureTraceWriter.MAX_POINTER_COUNT];
+
+    /**
+     * 上一个触摸事件之后记录的最后一个状态，-1表示没有
+     */
+    private int mExpectedState = -1;
+    private int mStateMismatchCount;
+    private int mEventCount;
+
+    /**
+     * 重放的时间和记录的时间的差值
+     */
+    private long mTimeOffset;
+    private boolean mHasTimeOffset;
+    private boolean mIsFinished;
+    /**
+     * {@link #play(View)}的时候已经读取，还没有分发的触摸事件
+     */
+    private boolean mHasPendingTouch;
+
+    private View mPlayTarget;
+    private final Runnable mPlayRunnable = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            playNext();
+        }
+    };
+
+    public GestureReplayer(InputStream inputStream) throws IOException
+    {
+        mReader = new GestureTraceReader(inputStream);
+        for (int i = 0; i < GestureTraceWriter.MAX_POINTER_COUNT; i++)
+        {
+            mPointerProperties[i] = new MotionEvent.PointerProperties();
+            mPointerCoords[i] = new MotionEvent.PointerCoords();
+        }
+    }
+
+    /**
+     * 分发下一个触摸事件
+     *
+     * @param target
+     * @return true-分发了触摸事件，false-没有更多触摸事件
+     * @throws IOException
+     */
+    public boolean step(View target) throws IOException
+    {
+        if (!readNextTouch())
+        {
+            return false;
+        }
+        checkState(target);
+        dispatchTouch(target);
+        return true;
+    }
+
+    /**
+     * 按照记录的时间间隔分发所有触摸事件，需要在主线程调用
+     *
+     * @param target
+     */
+    public void play(View target)
+    {
+        stop();
+        mPlayTarget = target;
+        playNext();
+    }
+
+    /**
+     * 停止{@link #play(View)}
+     */
+    public void stop()
+    {
+        if (mPlayTarget != null)
+        {
+            mPlayTarget.removeCallbacks(mPlayRunnable);
+            mPlayTarget = null;
+        }
+    }
+
+    /**
+     * 是否正在{@link #play(View)}
+     *
+     * @return
+     */
+    public boolean isPlaying()
+    {
+        return mPlayTarget != null;
+    }
+
+    private void playNext()
+    {
+        final View target = mPlayTarget;
+        if (target == null)
+        {
+            return;
+        }
+
+        try
+        {
+            if (mHasPendingTouch)
+            {
+                // 已经读取的触摸事件到时间了
+                mHasPendingTouch = false;
+                checkState(target);
+                dispatchTouch(target);
+            }
+            if (!readNextTouch())
+            {
+                finishPlay(target);
+                return;
+            }
+            mHasPendingTouch = true;
+
+            final long delay = mHasTimeOffset ? mReader.getTime() + mTimeOffset - SystemClock.uptimeMillis() : 0;
+            target.postDelayed(mPlayRunnable, Math.max(0, delay));
+        } catch (IOException e)
+        {
+            Log.e(TAG, "read gesture trace error:" + e);
+            finishPlay(target);
+        }
+    }
+
+    private void finishPlay(View target)
+    {
+        checkState(target);
+        mPlayTarget = null;
+    }
+
+    /**
+     * 读取到下一个触摸事件，记录中间的状态
+     *
+     * @return
+     * @throws IOException
+     */
+    private boolean readNextTouch() throws IOException
+    {
+        if (mIsFinished)
+        {
+            return false;
+        }
+        int type;
+        while ((type = mReader.next()) != 0)
+        {
+            if (type == GestureTraceWriter.RECORD_TOUCH)
+            {
+                return true;
+            } else if (type == GestureTraceWriter.RECORD_STATE)
+            {
+                mExpectedState = mReader.getState();
+            }
+        }
+        mIsFinished = true;
+        return false;
+    }
+
+    private void checkState(View target)
+    {
+        if (mExpectedState < 0 || !(target instanceof SDPullToRefreshView))
+        {
+            return;
+        }
+        final int state = ((SDPullToRefreshView) target).getState().ordinal();
+        if (state != mExpectedState)
+        {
+            mStateMismatchCount++;
+            Log.w(TAG, "state mismatch before event " + mEventCount + ", expected:" + mExpectedState + " actual:" + state);
+        }
+        mExpectedState = -1;
+    }
+
+    private void dispatchTouch(View target)
+    {
+        final GestureTraceReader reader = mReader;
+        if (!mHasTimeOffset)
+        {
+            mTimeOffset = SystemClock.uptimeMillis() - reader.getTime();
+            mHasTimeOffset = true;
+        }
+
+        final int pointerCount = reader.getPointerCount();
+        final int historySize = reader.getHistorySize();
+        final float rawOffsetX = reader.getRawOffsetX();
+        final float rawOffsetY = reader.getRawOffsetY();
+        for (int p = 0; p < pointerCount; p++)
+        {
+            final MotionEvent.PointerProperties properties = mPointerProperties[p];
+            properties.clear();
+            properties.id = reader.getPointerId(p);
+            properties.toolType = MotionEvent.TOOL_TYPE_FINGER;
+        }
+
+        // 第一个触摸点创建事件，后面的触摸点通过addBatch添加，屏幕坐标为记录的坐标加上偏移
+        setCoords(0, pointerCount, rawOffsetX, rawOffsetY);
+        final MotionEvent event = MotionEvent.obtain(reader.getDownTime() + mTimeOffset, reader.getSampleTime(0) + mTimeOffset,
+                reader.getAction(), pointerCount, mPointerProperties, mPointerCoords,
+                0, 0, 1, 1, 0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+        for (int s = 1; s <= historySize; s++)
+        {
+            setCoords(s, pointerCount, rawOffsetX, rawOffsetY);
+            event.addBatch(reader.getSampleTime(s) + mTimeOffset, mPointerCoords, 0);
+        }
+        event.offsetLocation(-rawOffsetX, -rawOffsetY);
+
+        target.dispatchTouchEvent(event);
+        event.recycle();
+        mEventCount++;
+    }
+
+    private void setCoords(int sample, int pointerCount, float rawOffsetX, float rawOffsetY)
+    {
+        for (int p = 0; p < pointerCount; p++)
+        {
+            final MotionEvent.PointerCoords coords = mPointerCoords[p];
+            coords.clear();
+            coords.x = mReader.getSampleX(sample, p) + rawOffsetX;
+            coords.y = mReader.getSampleY(sample, p) + rawOffsetY;
+            coords.pressure = 1;
+            coords.size = 1;
+        }
+    }
+
+    /**
+     * 返回重放过程中状态和记录不一致的次数
+     *
+     * @return
+     */
+    public int getStateMismatchCount()
+    {
+        return mStateMismatchCount;
+    }
+
+    /**
+     * 返回已经分发的触摸事件数量
+     *
+     * @return
+     */
+    public int getEventCount()
+    {
+        return mEventCount;
+    }
+
+    public void close() throws IOException
+    {
+        stop();
+        mReader.close();
+    }
+}
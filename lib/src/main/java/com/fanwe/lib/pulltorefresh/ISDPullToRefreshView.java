@@ -29,6 +29,14 @@ public interface ISDPullToRefreshView
      * 默认的显示刷新结果的时长（毫秒）
      */
     int DEFAULT_DURATION_SHOW_REFRESH_RESULT = 600;
+    /**
+     * 默认的弹簧刚度
+     */
+    float DEFAULT_SPRING_STIFFNESS = 600f;
+    /**
+     * 默认的弹簧阻尼比，1为临界阻尼，不回弹
+     */
+    float DEFAULT_SPRING_DAMPING_RATIO = 1f;
 
     /**
      * 设置刷新模式
@@ -59,7 +67,8 @@ public interface ISDPullToRefreshView
     void setOnViewPositionChangedCallback(OnViewPositionChangedCallback onViewPositionChangedCallback);
 
     /**
-     * 设置可以触发拖动的条件，设置后当view内部满足拖动，并且此对象也满足条件后才可以触发拖动
+     * 设置可以触发拖动的条件，设置后当view内部满足拖动，并且此对象也满足条件后才可以触发拖动<br>
+     * 判断结果会缓存，同一次手势中只在view树滚动或者重新布局后才重新判断
      *
      * @param pullCondition
      */
@@ -79,6 +88,20 @@ public interface ISDPullToRefreshView
      */
     boolean isOverLayMode();
 
+    /**
+     * 设置HeaderView，FooterView和RefreshView是否只通过translationY移动（默认false），开启后一次完整的拖动，滚动，重置过程不会触发重新布局
+     *
+     * @param translationMode
+     */
+    void setTranslationMode(boolean translationMode);
+
+    /**
+     * 是否是translationY移动的模式
+     *
+     * @return
+     */
+    boolean isTranslationMode();
+
     /**
      * 设置拖动的时候要消耗的拖动距离比例，默认{@link #DEFAULT_COMSUME_SCROLL_PERCENT}
      *
@@ -93,6 +116,15 @@ public interface ISDPullToRefreshView
      */
     void setDurationShowRefreshResult(int durationShowRefreshResult);
 
+    /**
+     * 设置滚动到某个状态对应位置的时候使用的弹簧参数，默认{@link #DEFAULT_SPRING_STIFFNESS}，{@link #DEFAULT_SPRING_DAMPING_RATIO}
+     *
+     * @param state        目标状态
+     * @param stiffness    弹簧刚度，值越大滚动越快
+     * @param dampingRatio 阻尼比，1-不回弹，小于1会回弹
+     */
+    void setSpringConfig(State state, float stiffness, float dampingRatio);
+
     /**
      * 设置是否判断拖动角度，默认判断拖动方向与y轴的夹角必须小于40度
      *
@@ -137,7 +169,7 @@ public interface ISDPullToRefreshView
     State getState();
 
     /**
-     * 返回HeaderView
+     * 返回HeaderView，第一次拖动或者刷新之前HeaderView还没有创建，调用这个方法会立即创建
      *
      * @return
      */
@@ -151,7 +183,7 @@ public interface ISDPullToRefreshView
     void setHeaderView(SDPullToRefreshLoadingView headerView);
 
     /**
-     * 返回FooterView
+     * 返回FooterView，第一次拖动或者刷新之前FooterView还没有创建，调用这个方法会立即创建
      *
      * @return
      */
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import com.fanwe.lib.pulltorefresh.loadingview.SDPullToRefreshLoadingView;
+
+/**
+ * 缓存一个加载view的测量结果<br>
+ * 传给加载view的MeasureSpec和加载view的内容版本号{@link SDPullToRefreshLoadingView#getContentVersion()}都没有变化的时候不重新测量；
+ * 宽度不确定的时候需要先按不限制宽度测量一次得到加载view想要的宽度，这次的结果单独缓存，不需要每次都测两遍
+ */
+class LoadingViewMeasureCache
+{
+    private SDPullToRefreshLoadingView mView;
+    private int mContentVersion;
+
+    /**
+     * 最后一次调用measure传入的参数，也就是加载view当前测量结果对应的参数
+     */
+    private boolean mHasMeasured;
+    private int mWidthMeasureSpec;
+    private int mHeightMeasureSpec;
+
+    /**
+     * 最后一次不限制宽度测量的参数和结果
+     */
+    private boolean mHasWrapMeasured;
+    private int mWrapWidthMeasureSpec;
+    private int mWrapHeightMeasureSpec;
+    private int mWrapWidth;
+    private int mWrapHeight;
+
+    /**
+     * 测量之后还没有重新布局
+     */
+    private boolean mIsLayoutRequired;
+
+    /**
+     * 测量加载view，参数和内容都没有变化的时候跳过
+     *
+     * @param view
+     * @param widthMeasureSpec  传给加载view的宽度MeasureSpec
+     * @param heightMeasureSpec 传给加载view的高度MeasureSpec
+     * @return true-调用了加载view的measure方法
+     */
+    public boolean measure(SDPullToRefreshLoadingView view, int widthMeasureSpec, int heightMeasureSpec)
+    {
+        checkView(view);
+        if (mHasMeasured && mWidthMeasureSpec == widthMeasureSpec && mHeightMeasureSpec == heightMeasureSpec)
+        {
+            return false;
+        }
+
+        view.measure(widthMeasureSpec, heightMeasureSpec);
+        mIsLayoutRequired = true;
+        mHasMeasured = true;
+        mWidthMeasureSpec = widthMeasureSpec;
+        mHeightMeasureSpec = heightMeasureSpec;
+        return true;
+    }
+
+    /**
+     * 不限制宽度测量加载view，结果通过{@link #getWrapWidth()}和{@link #getWrapHeight()}获得；
+     * 参数和内容都没有变化的时候直接返回缓存的结果，不会调用measure
+     *
+     * @param view
+     * @param widthMeasureSpec  传给加载view的宽度MeasureSpec
+     * @param heightMeasureSpec 传给加载view的高度MeasureSpec
+     */
+    public void measureWrap(SDPullToRefreshLoadingView view, int widthMeasureSpec, int heightMeasureSpec)
+    {
+        checkView(view);
+        if (mHasWrapMeasured && mWrapWidthMeasureSpec == widthMeasureSpec && mWrapHeightMeasureSpec == heightMeasureSpec)
+        {
+            return;
+        }
+
+        measure(view, widthMeasureSpec, heightMeasureSpec);
+        mHasWrapMeasured = true;
+        mWrapWidthMeasureSpec = widthMeasureSpec;
+        mWrapHeightMeasureSpec = heightMeasureSpec;
+        mWrapWidth = view.getMeasuredWidth();
+        mWrapHeight = view.getMeasuredHeight();
+    }
+
+    public int getWrapWidth()
+    {
+        return mWrapWidth;
+    }
+
+    public int getWrapHeight()
+    {
+        return mWrapHeight;
+    }
+
+    /**
+     * 返回加载view测量之后是否还没有重新布局，返回后清除这个标记；
+     * 重新测量过的加载view即使大小没有变化，子view也可能需要重新布局
+     *
+     * @return
+     */
+    public boolean consumeLayoutRequired()
+    {
+        final boolean required = mIsLayoutRequired;
+        mIsLayoutRequired = false;
+        return required;
+    }
+
+    /**
+     * 清空缓存，下一次一定重新测量
+     */
+    public void invalidate()
+    {
+        mView = null;
+        mIsLayoutRequired = false;
+        mHasMeasured = false;
+        mHasWrapMeasured = false;
+    }
+
+    /**
+     * 加载view被替换或者内容有变化(请求过重新布局)的时候清空缓存
+     *
+     * @param view
+     */
+    private void checkView(SDPullToRefreshLoadingView view)
+    {
+        final int contentVersion = view.getContentVersion();
+        if (view != mView || contentVersion != mContentVersion)
+        {
+            invalidate();
+            mView = view;
+            mContentVersion = contentVersion;
+        }
+    }
+}
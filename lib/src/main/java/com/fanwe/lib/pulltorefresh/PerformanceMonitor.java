@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.content.Context;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.WindowManager;
+
+import java.util.Arrays;
+
+/**
+ * 拖动和滚动阶段的帧耗时统计<br>
+ * 通过{@link SDPullToRefreshView#setPerformanceMonitor(PerformanceMonitor)}设置后，在拖动或者滚动的时候监听每一帧，
+ * 一次手势结束后按照{@link ISDPullToRefreshView.State}分别统计帧耗时的百分位，掉帧数和最长帧，通过{@link OnFrameStatsListener}回调<br>
+ * 需要api16以上，低于api16的时候不做任何统计
+ */
+public class PerformanceMonitor
+{
+    /**
+     * 每个状态最多保存的帧数量
+     */
+    public static final int DEFAULT_MAX_FRAMES_PER_STATE = 600;
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private final long mFrameIntervalNanos;
+    private final int mMaxFramesPerState;
+    private final FrameStats[] mFrameStats;
+
+    private ISDPullToRefreshView.State mState = ISDPullToRefreshView.State.RESET;
+    private boolean mIsTracking;
+    private long mLastFrameTimeNanos;
+
+    private Choreographer.FrameCallback mFrameCallback;
+    private OnFrameStatsListener mOnFrameStatsListener;
+
+    public PerformanceMonitor(Context context)
+    {
+        this(context, DEFAULT_MAX_FRAMES_PER_STATE);
+    }
+
+    public PerformanceMonitor(Context context, int maxFramesPerState)
+    {
+        if (maxFramesPerState <= 0)
+        {
+            throw new IllegalArgumentException("maxFramesPerState must be > 0");
+        }
+        mMaxFramesPerState = maxFramesPerState;
+        mFrameIntervalNanos = (long) (1000000000L / getRefreshRate(context));
+
+        final ISDPullToRefreshView.State[] states = ISDPullToRefreshView.State.values();
+        mFrameStats = new FrameStats[states.length];
+        for (int i = 0; i < states.length; i++)
+        {
+            mFrameStats[i] = new FrameStats(states[i], maxFramesPerState);
+        }
+    }
+
+    private static float getRefreshRate(Context context)
+    {
+        float refreshRate = 0;
+        if (context != null)
+        {
+            WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+            if (windowManager != null)
+            {
+                Display display = windowManager.getDefaultDisplay();
+                if (display != null)
+                {
+                    refreshRate = display.getRefreshRate();
+                }
+            }
+        }
+        if (refreshRate < 1)
+        {
+            refreshRate = DEFAULT_REFRESH_RATE;
+        }
+        return refreshRate;
+    }
+
+    /**
+     * 设置统计结果回调
+     *
+     * @param onFrameStatsListener
+     */
+    public void setOnFrameStatsListener(OnFrameStatsListener onFrameStatsListener)
+    {
+        mOnFrameStatsListener = onFrameStatsListener;
+    }
+
+    /**
+     * 返回理想情况下一帧的时长（纳秒）
+     *
+     * @return
+     */
+    public long getFrameIntervalNanos()
+    {
+        return mFrameIntervalNanos;
+    }
+
+    /**
+     * 返回某个状态下最近一次手势的统计结果
+     *
+     * @param state
+     * @return
+     */
+    public FrameStats getFrameStats(ISDPullToRefreshView.State state)
+    {
+        return mFrameStats[state.ordinal()];
+    }
+
+    /**
+     * 拖动状态变化
+     *
+     * @param active true-拖动或者滚动中，false-静止
+     */
+    void onDragStateChanged(boolean active)
+    {
+        if (Build.VERSION.SDK_INT < 16)
+        {
+            return;
+        }
+
+        if (active)
+        {
+            if (!mIsTracking)
+            {
+                startTracking();
+            }
+        } else
+        {
+            if (mIsTracking)
+            {
+                stopTracking();
+            }
+        }
+    }
+
+    void onStateChanged(ISDPullToRefreshView.State state)
+    {
+        mState = state;
+    }
+
+    private void startTracking()
+    {
+        for (FrameStats item : mFrameStats)
+        {
+            item.reset();
+        }
+        mIsTracking = true;
+        mLastFrameTimeNanos = 0;
+        Choreographer.getInstance().postFrameCallback(getFrameCallback());
+    }
+
+    private void stopTracking()
+    {
+        mIsTracking = false;
+        Choreographer.getInstance().removeFrameCallback(getFrameCallback());
+
+        for (FrameStats item : mFrameStats)
+        {
+            item.compute(mFrameIntervalNanos);
+        }
+
+        if (mOnFrameStatsListener != null)
+        {
+            mOnFrameStatsListener.onFrameStats(this);
+        }
+    }
+
+    private Choreographer.FrameCallback getFrameCallback()
+    {
+        if (mFrameCallback == null)
+        {
+            mFrameCallback = new Choreographer.FrameCallback()
+            {
+                @Override
+                public void doFrame(long frameTimeNanos)
+                {
+                    if (!mIsTracking)
+                    {
+                        return;
+                    }
+
+                    if (mLastFrameTimeNanos > 0)
+                    {
+                        mFrameStats[mState.ordinal()].add(frameTimeNanos - mLastFrameTimeNanos);
+                    }
+                    mLastFrameTimeNanos = frameTimeNanos;
+                    Choreographer.getInstance().postFrameCallback(this);
+                }
+            };
+        }
+        return mFrameCallback;
+    }
+
+    /**
+     * 某个状态下的帧耗时统计，对象会被复用，只在回调中有效
+     */
+    public static final class FrameStats
+    {
+        private final ISDPullToRefreshView.State mState;
+        private final long[] mFrames;
+        private int mFrameCount;
+
+        private long mP50;
+        private long mP90;
+        private long mP99;
+        private long mMax;
+        private int mDroppedFrames;
+
+        private FrameStats(ISDPullToRefreshView.State state, int maxFrames)
+        {
+            mState = state;
+            mFrames = new long[maxFrames];
+        }
+
+        private void reset()
+        {
+            mFrameCount = 0;
+            mP50 = 0;
+            mP90 = 0;
+            mP99 = 0;
+            mMax = 0;
+            mDroppedFrames = 0;
+        }
+
+        private void add(long frameNanos)
+        {
+            if (mFrameCount < mFrames.length)
+            {
+                mFrames[mFrameCount] = frameNanos;
+                mFrameCount++;
+            }
+        }
+
+        private void compute(long frameIntervalNanos)
+        {
+            if (mFrameCount <= 0)
+            {
+                return;
+            }
+
+            int dropped = 0;
+            for (int i = 0; i < mFrameCount; i++)
+            {
+                final long frames = (mFrames[i] + frameIntervalNanos / 2) / frameIntervalNanos;
+                if (frames > 1)
+                {
+                    dropped += frames - 1;
+                }
+            }
+            mDroppedFrames = dropped;
+
+            Arrays.sort(mFrames, 0, mFrameCount);
+            mP50 = percentile(50);
+            mP90 = percentile(90);
+            mP99 = percentile(99);
+            mMax = mFrames[mFrameCount - 1];
+        }
+
+        private long percentile(int percent)
+        {
+            int index = (mFrameCount * percent + 99) / 100 - 1;
+            if (index < 0)
+            {
+                index = 0;
+            }
+            return mFrames[index];
+        }
+
+        public ISDPullToRefreshView.State getState()
+        {
+            return mState;
+        }
+
+        /**
+         * 返回统计的帧数量
+         *
+         * @return
+         */
+        public int getFrameCount()
+        {
+            return mFrameCount;
+        }
+
+        public long getP50Nanos()
+        {
+            return mP50;
+        }
+
+        public long getP90Nanos()
+        {
+            return mP90;
+        }
+
+        public long getP99Nanos()
+        {
+            return mP99;
+        }
+
+        /**
+         * 返回最长的一帧耗时（纳秒）
+         *
+         * @return
+         */
+        public long getMaxNanos()
+        {
+            return mMax;
+        }
+
+        /**
+         * 返回掉帧数
+         *
+         * @return
+         */
+        public int getDroppedFrames()
+        {
+            return mDroppedFrames;
+        }
+    }
+
+    public interface OnFrameStatsListener
+    {
+        /**
+         * 一次拖动或者滚动结束后回调，可以通过{@link PerformanceMonitor#getFrameStats(ISDPullToRefreshView.State)}获得每个状态的统计结果
+         *
+         * @param monitor
+         */
+        void onFrameStats(PerformanceMonitor monitor);
+    }
+}
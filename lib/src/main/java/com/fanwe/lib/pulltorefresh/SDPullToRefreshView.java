@@ -16,18 +16,35 @@
 package com.fanwe.lib.pulltorefresh;
 
 import android.content.Context;
+import android.graphics.Canvas;
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.AttrRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.view.ViewCompat;
-import android.support.v4.widget.ViewDragHelper;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-
+import android.view.ViewTreeObserver;
+
+import com.fanwe.lib.pulltorefresh.core.Clock;
+import com.fanwe.lib.pulltorefresh.core.EventRingLog;
+import com.fanwe.lib.pulltorefresh.core.GestureCounter;
+import com.fanwe.lib.pulltorefresh.core.InputLatencyTracker;
+import com.fanwe.lib.pulltorefresh.core.PullLayout;
+import com.fanwe.lib.pulltorefresh.core.PullState;
+import com.fanwe.lib.pulltorefresh.core.PullStateMachine;
+import com.fanwe.lib.pulltorefresh.core.RefreshMetrics;
+import com.fanwe.lib.pulltorefresh.core.Scheduler;
+import com.fanwe.lib.pulltorefresh.core.TouchMath;
+import com.fanwe.lib.pulltorefresh.core.Tracer;
+import com.fanwe.lib.pulltorefresh.loadingview.LoadingViewFactory;
+import com.fanwe.lib.pulltorefresh.loadingview.LoadingViewPool;
+import com.fanwe.lib.pulltorefresh.loadingview.LoadingViewRegistry;
 import com.fanwe.lib.pulltorefresh.loadingview.SDPullToRefreshLoadingView;
 import com.fanwe.lib.pulltorefresh.loadingview.SimpleTextLoadingView;
 
@@ -53,141 +70,520 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
 
     private static final String TAG = "SDPullToRefreshView";
 
+    /**
+     * 根据松手速度预测拖动距离时使用的减速度（dp/秒²）
+     */
+    private static final float FLING_DECELERATION_DP = 4000f;
+    /**
+     * 拖动方向和y轴的最大夹角
+     */
+    private static final double MAX_DRAG_DEGREE = 40;
+    /**
+     * 最大夹角正切值的平方
+     */
+    private static final float MAX_DRAG_TAN_SQUARED = TouchMath.getTanSquared(MAX_DRAG_DEGREE);
+
+    private static final State[] STATES = State.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
     private SDPullToRefreshLoadingView mHeaderView;
     private SDPullToRefreshLoadingView mFooterView;
     private View mRefreshView;
+    /**
+     * 加载view是否是默认创建的，只有默认创建的才会放回缓存
+     */
+    private boolean mIsHeaderViewRecyclable = false;
+    private boolean mIsFooterViewRecyclable = false;
+    /**
+     * 加载view是否因为静止状态被隐藏，和外部设置的visibility无关
+     */
+    private boolean mIsHeaderViewHidden = false;
+    private boolean mIsFooterViewHidden = false;
+    private LoadingViewPool mLoadingViewPool;
+    private final LoadingViewMeasureCache mHeaderMeasureCache = new LoadingViewMeasureCache();
+    private final LoadingViewMeasureCache mFooterMeasureCache = new LoadingViewMeasureCache();
+    /**
+     * 最后一次测量加载view时传入的MeasureSpec，隐藏的加载view重新显示的时候用它测量
+     */
+    private int mLoadingViewWidthMeasureSpec;
+    private int mLoadingViewHeightMeasureSpec;
+    /**
+     * 最后一次测量RefreshView时传入的MeasureSpec，变化之后RefreshView需要重新布局
+     */
+    private int mRefreshViewWidthMeasureSpec;
+    private int mRefreshViewHeightMeasureSpec;
+    private boolean mIsRefreshViewLayoutRequired;
 
     private Mode mMode = Mode.BOTH;
-    private State mState = State.RESET;
-    private Direction mDirection = Direction.NONE;
-    private Direction mLastDirection = Direction.NONE;
+    private PullStateMachine mStateMachine;
     private boolean mCheckDragDegree = true;
     /**
      * HeaderView和FooterView是否是覆盖的模式
      */
     private boolean mIsOverLayMode = false;
     /**
-     * 拖动的时候要消耗的拖动距离比例
-     */
-    private float mComsumeScrollPercent = DEFAULT_COMSUME_SCROLL_PERCENT;
-    /**
-     * 显示刷新结果的时长
+     * RefreshView是否只通过translationY移动
      */
-    private int mDurationShowRefreshResult = DEFAULT_DURATION_SHOW_REFRESH_RESULT;
+    private boolean mIsTranslationMode = false;
 
-    private ViewDragHelper mViewDragHelper;
+    private VerticalDragHelper mDragHelper;
+    private float mMinFlingVelocity;
+    private float mFlingDeceleration;
+    private float mComsumeScrollPercent = DEFAULT_COMSUME_SCROLL_PERCENT;
+    private final float[] mSpringStiffness = new float[State.values().length];
+    private final float[] mSpringDampingRatio = new float[State.values().length];
 
     private boolean mHasOnLayout = false;
-    private Runnable mUpdatePositionRunnable;
+    /**
+     * 还没有布局的时候，是否需要在布局后根据状态滚动view
+     */
+    private boolean mIsUpdatePositionPending = false;
 
     private OnRefreshCallback mOnRefreshCallback;
     private OnStateChangedCallback mOnStateChangedCallback;
     private OnViewPositionChangedCallback mOnViewPositionChangedCallback;
     private IPullCondition mPullCondition;
-
-    private final LogUtils mLogUtils = new LogUtils(SDPullToRefreshView.class);
+    private final EdgeStateTracker mEdgeStateTracker = new EdgeStateTracker();
+    private PerformanceMonitor mPerformanceMonitor;
+    private GestureCounter mGestureCounter;
+    private GestureRecorder mGestureRecorder;
+    private RefreshMetrics mRefreshMetrics;
+    private EventRingLog mEventRingLog;
+    private InputLatencyTracker mInputLatencyTracker;
+    private ViewTreeObserver.OnDrawListener mLatencyDrawListener;
+    private ViewTreeObserver mLatencyViewTreeObserver;
+    private Tracer mTracer;
+
+    private final TraceLog mTraceLog = new TraceLog(TAG);
+    private DebugOverlay mDebugOverlay;
 
     private void initInternal(AttributeSet attrs)
     {
-        addLoadingViews();
-        initViewDragHelper();
+        initStateMachine();
+        initDragHelper();
+        initSpringConfig();
     }
 
+    /**
+     * 设置调试模式，开启后会记录布局，滚动，状态变化等事件，可以调用{@link #dumpDebugEvents()}输出到logcat；
+     * 并且在view上显示状态，滚动距离，速度，帧耗时和每秒布局次数
+     *
+     * @param debug
+     */
     public void setDebug(boolean debug)
     {
-        mLogUtils.setDebug(debug);
-        mTouchHelper.setDebug(debug);
+        mTraceLog.setEnabled(debug);
+        if (debug && mDebugOverlay == null)
+        {
+            mDebugOverlay = new DebugOverlay(getContext());
+        }
+        if (mDebugOverlay != null)
+        {
+            mDebugOverlay.reset();
+        }
+        invalidate();
     }
 
     public void setDebugTag(String debugTag)
     {
-        mLogUtils.setDebugTag(debugTag);
+        mTraceLog.setDebugTag(debugTag);
     }
 
-    private void initViewDragHelper()
+    /**
+     * 把调试模式下记录的事件按时间顺序输出到logcat
+     */
+    public void dumpDebugEvents()
     {
-        mViewDragHelper = ViewDragHelper.create(this, new ViewDragHelper.Callback()
+        mTraceLog.dump();
+    }
+
+    /**
+     * 设置帧耗时统计对象，设置后会在拖动和滚动的时候统计每一帧的耗时，null-不统计
+     *
+     * @param performanceMonitor
+     */
+    public void setPerformanceMonitor(PerformanceMonitor performanceMonitor)
+    {
+        if (mPerformanceMonitor != null)
         {
-            @Override
-            public boolean tryCaptureView(View child, int pointerId)
+            mPerformanceMonitor.onDragStateChanged(false);
+        }
+        mPerformanceMonitor = performanceMonitor;
+        if (performanceMonitor != null)
+        {
+            performanceMonitor.onStateChanged(getState());
+        }
+    }
+
+    public PerformanceMonitor getPerformanceMonitor()
+    {
+        return mPerformanceMonitor;
+    }
+
+    /**
+     * 设置手势操作次数统计对象，设置后会统计每次手势中measure，layout，requestLayout，状态变化等操作的次数，null-不统计
+     *
+     * @param gestureCounter
+     */
+    public void setGestureCounter(GestureCounter gestureCounter)
+    {
+        if (mGestureCounter != null)
+        {
+            mGestureCounter.cancel();
+        }
+        mGestureCounter = gestureCounter;
+    }
+
+    public GestureCounter getGestureCounter()
+    {
+        return mGestureCounter;
+    }
+
+    /**
+     * 设置手势记录对象，设置后会记录收到的触摸事件以及状态和位置变化，null-不记录
+     *
+     * @param gestureRecorder
+     */
+    public void setGestureRecorder(GestureRecorder gestureRecorder)
+    {
+        mGestureRecorder = gestureRecorder;
+    }
+
+    public GestureRecorder getGestureRecorder()
+    {
+        return mGestureRecorder;
+    }
+
+    /**
+     * 设置刷新耗时和手势结果统计对象，null-不统计
+     *
+     * @param refreshMetrics
+     */
+    public void setRefreshMetrics(RefreshMetrics refreshMetrics)
+    {
+        mRefreshMetrics = refreshMetrics;
+    }
+
+    public RefreshMetrics getRefreshMetrics()
+    {
+        return mRefreshMetrics;
+    }
+
+    /**
+     * 设置事件记录文件，设置后会记录状态变化，滚动动画开始和结束，刷新回调，null-不记录
+     *
+     * @param eventRingLog
+     */
+    public void setEventRingLog(EventRingLog eventRingLog)
+    {
+        mEventRingLog = eventRingLog;
+    }
+
+    public EventRingLog getEventRingLog()
+    {
+        return mEventRingLog;
+    }
+
+    private void appendEvent(int type)
+    {
+        if (mEventRingLog != null)
+        {
+            mEventRingLog.append(type, SystemClock.uptimeMillis(), mStateMachine.getState(), mStateMachine.getLastDirection(),
+                    getScrollDistance(), getDrawingTime());
+        }
+    }
+
+    /**
+     * 设置拖动延迟统计对象，设置后会统计每个MOVE事件到对应位置变化绘制出来的延迟，需要API 16，null-不统计
+     *
+     * @param inputLatencyTracker
+     */
+    public void setInputLatencyTracker(InputLatencyTracker inputLatencyTracker)
+    {
+        mInputLatencyTracker = inputLatencyTracker;
+        if (inputLatencyTracker != null && ViewCompat.isAttachedToWindow(this))
+        {
+            addLatencyDrawListener();
+        } else
+        {
+            removeLatencyDrawListener();
+        }
+    }
+
+    public InputLatencyTracker getInputLatencyTracker()
+    {
+        return mInputLatencyTracker;
+    }
+
+    /**
+     * translationY移动的模式下child移动不会调用当前view的dispatchDraw，所以监听整个窗口的绘制
+     */
+    private void addLatencyDrawListener()
+    {
+        if (Build.VERSION.SDK_INT < 16 || mLatencyViewTreeObserver != null)
+        {
+            return;
+        }
+        if (mLatencyDrawListener == null)
+        {
+            mLatencyDrawListener = new ViewTreeObserver.OnDrawListener()
             {
-                return false;
+                @Override
+                public void onDraw()
+                {
+                    if (mInputLatencyTracker != null)
+                    {
+                        mInputLatencyTracker.onFrame(SystemClock.uptimeMillis());
+                    }
+                }
+            };
+        }
+        mLatencyViewTreeObserver = getViewTreeObserver();
+        mLatencyViewTreeObserver.addOnDrawListener(mLatencyDrawListener);
+    }
+
+    private void removeLatencyDrawListener()
+    {
+        if (mLatencyViewTreeObserver != null)
+        {
+            if (mLatencyViewTreeObserver.isAlive())
+            {
+                mLatencyViewTreeObserver.removeOnDrawListener(mLatencyDrawListener);
+            }
+            mLatencyViewTreeObserver = null;
+        }
+    }
+
+    private void trackInput(MotionEvent event)
+    {
+        if (mInputLatencyTracker != null)
+        {
+            mInputLatencyTracker.onInput(event.getEventTime());
+        }
+    }
+
+    /**
+     * 设置耗时区间记录对象，默认不记录；调试的时候可以设置{@link AndroidTracer}输出到systrace或者Perfetto，null-不记录
+     *
+     * @param tracer
+     */
+    public void setTracer(Tracer tracer)
+    {
+        mTracer = tracer;
+    }
+
+    public Tracer getTracer()
+    {
+        return mTracer;
+    }
+
+    private void beginTrace(String name)
+    {
+        if (mTracer != null)
+        {
+            mTracer.beginSection(name);
+        }
+    }
+
+    private void endTrace()
+    {
+        if (mTracer != null)
+        {
+            mTracer.endSection();
+        }
+    }
+
+    private void countGesture(int counter)
+    {
+        if (mGestureCounter != null)
+        {
+            mGestureCounter.increment(counter);
+        }
+    }
+
+    private void beginGesture()
+    {
+        if (mGestureCounter != null)
+        {
+            if (getState() == State.RESET && isDragIdle())
+            {
+                // 上一次按下后没有触发拖动
+                mGestureCounter.cancel();
             }
+            mGestureCounter.begin();
+        }
+    }
 
+    private void initDragHelper()
+    {
+        mDragHelper = new VerticalDragHelper(getContext(), new VerticalDragHelper.Callback()
+        {
             @Override
-            public void onViewCaptured(View capturedChild, int activePointerId)
+            public int getViewTop(View view)
             {
-                super.onViewCaptured(capturedChild, activePointerId);
-                mLogUtils.i("ViewDragHelper onViewCaptured----------");
+                return getChildTop(view);
             }
 
             @Override
-            public void onViewReleased(View releasedChild, float xvel, float yvel)
+            public void offsetView(View view, int dy)
             {
-                super.onViewReleased(releasedChild, xvel, yvel);
-                mLogUtils.i("ViewDragHelper onViewReleased");
+                offsetChild(view, dy);
+            }
 
-                if (mState == State.RELEASE_TO_REFRESH)
+            @Override
+            public int clampViewPositionVertical(View view, int top)
+            {
+                if (view == mHeaderView)
+                {
+                    return Math.max(getTopHeaderViewReset(), top);
+                } else if (view == mFooterView)
                 {
-                    setState(State.REFRESHING);
+                    return Math.min(getTopFooterViewReset(), top);
                 }
-                smoothScrollViewByState();
+                return getChildTop(view);
             }
 
             @Override
-            public void onViewDragStateChanged(int state)
+            public void onViewPositionChanged(View view, int top, int dy)
             {
-                super.onViewDragStateChanged(state);
-                if (state == ViewDragHelper.STATE_IDLE)
+                if (mInputLatencyTracker != null)
                 {
-                    switch (mState)
-                    {
-                        case REFRESHING:
-                            notifyRefreshCallback();
-                            break;
-                        case PULL_TO_REFRESH:
-                        case REFRESH_FINISH:
-                            setState(State.RESET);
-                            break;
-                    }
+                    mInputLatencyTracker.onPositionChanged();
                 }
+                if (mDragHelper.getViewDragState() == VerticalDragHelper.STATE_DRAGGING)
+                {
+                    updateStateByMoveDistance();
+                }
+
+                moveViews(dy);
             }
 
             @Override
-            public int clampViewPositionHorizontal(View child, int left, int dx)
+            public void onViewDragUnchanged(View view)
             {
-                return child.getLeft();
+                if (mInputLatencyTracker != null)
+                {
+                    mInputLatencyTracker.onInputDropped();
+                }
             }
 
             @Override
-            public int clampViewPositionVertical(View child, int top, int dy)
+            public void onViewReleased(View view, float yvel)
             {
-                final int dyConsume = getComsumedDistance(dy);
-                final int topConsume = top - dyConsume;
-
-                int result = child.getTop();
-                if (child == mHeaderView)
-                {
-                    result = Math.max(getTopHeaderViewReset(), topConsume);
-                } else if (child == mFooterView)
-                {
-                    result = Math.min(getTopFooterViewReset(), topConsume);
-                }
-                return result;
+                // view移动的速度
+                final float velocity = yvel * mComsumeScrollPercent;
+                mStateMachine.onRelease(canRefreshByFling(velocity));
+                smoothScrollViewByStateReal(velocity);
             }
 
             @Override
-            public void onViewPositionChanged(View changedView, int left, int top, int dx, int dy)
+            public boolean onViewSettleCrossFinal(View view, float velocity)
             {
-                super.onViewPositionChanged(changedView, left, top, dx, dy);
-                if (mViewDragHelper.getViewDragState() == ViewDragHelper.STATE_DRAGGING)
+                switch (getState())
                 {
-                    updateStateByMoveDistance();
+                    case RESET:
+                    case PULL_TO_REFRESH:
+                    case REFRESH_FINISH:
+                        // 收起的时候停在静止的位置，剩余的速度交给RefreshView惯性滚动
+                        flingRefreshView(velocity);
+                        return true;
+                    default:
+                        return false;
                 }
+            }
 
-                moveViews(dy);
+            @Override
+            public void onViewDragStateChanged(int state)
+            {
+                onDragStateChanged(state);
             }
         });
+        mDragHelper.setComsumeScrollPercent(mComsumeScrollPercent);
+
+        final ViewConfiguration configuration = ViewConfiguration.get(getContext());
+        mMinFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        mTouchHelper.setTouchSlop(configuration.getScaledTouchSlop());
+        mFlingDeceleration = FLING_DECELERATION_DP * getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * 根据松手速度判断是否可以触发刷新，快速甩动的时候即使拖动距离不够也可以触发刷新
+     *
+     * @param velocity view移动的速度（像素/秒）
+     * @return
+     */
+    private boolean canRefreshByFling(float velocity)
+    {
+        if (getState() != State.PULL_TO_REFRESH)
+        {
+            return false;
+        }
+
+        // 拉出加载view方向的速度
+        final float pullVelocity = getDirection() == Direction.FROM_HEADER ? velocity : -velocity;
+        if (pullVelocity < mMinFlingVelocity)
+        {
+            return false;
+        }
+
+        // 按照匀减速预测松手后还可以移动的距离
+        final int distance = Math.abs(getScrollDistance()) + (int) (pullVelocity * pullVelocity / (2 * mFlingDeceleration));
+        if (getDirection() == Direction.FROM_HEADER)
+        {
+            return mHeaderView.canRefresh(distance);
+        } else
+        {
+            return mFooterView.canRefresh(distance);
+        }
+    }
+
+    /**
+     * 加载view收起后，把剩余的速度交给RefreshView惯性滚动
+     *
+     * @param velocity view移动的速度（像素/秒）
+     */
+    private void flingRefreshView(float velocity)
+    {
+        if (Math.abs(velocity) < mMinFlingVelocity)
+        {
+            return;
+        }
+        // view向上移动的时候，内容继续向下滚动
+        onFlingRefreshView((int) -velocity);
+    }
+
+    /**
+     * 加载view收起后，RefreshView需要继续惯性滚动的时候回调，默认支持RecyclerView，AbsListView（api21以上），ScrollView，NestedScrollView，
+     * 其他类型的RefreshView可以重写此方法
+     *
+     * @param velocityY 速度（像素/秒），大于0内容向上滚动
+     */
+    protected void onFlingRefreshView(int velocityY)
+    {
+        SDTouchHelper.flingVertically(mRefreshView, velocityY);
+    }
+
+    private void initSpringConfig()
+    {
+        for (int i = 0; i < mSpringStiffness.length; i++)
+        {
+            mSpringStiffness[i] = DEFAULT_SPRING_STIFFNESS;
+            mSpringDampingRatio[i] = DEFAULT_SPRING_DAMPING_RATIO;
+        }
+    }
+
+    private void onDragStateChanged(int state)
+    {
+        mTraceLog.dragStateChanged(state);
+        if (mPerformanceMonitor != null)
+        {
+            mPerformanceMonitor.onDragStateChanged(state != VerticalDragHelper.STATE_IDLE);
+        }
+        if (state == VerticalDragHelper.STATE_IDLE)
+        {
+            mStateMachine.onIdle();
+            hideLoadingViewsIfIdle();
+        }
     }
 
     @Override
@@ -229,12 +625,13 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
     public void setPullCondition(IPullCondition pullCondition)
     {
         mPullCondition = pullCondition;
+        mEdgeStateTracker.setPullCondition(pullCondition);
     }
 
     @Override
     public void setOverLayMode(boolean overLayMode)
     {
-        if (mViewDragHelper.getViewDragState() == ViewDragHelper.STATE_IDLE && mState == State.RESET)
+        if (mDragHelper.getViewDragState() == VerticalDragHelper.STATE_IDLE && getState() == State.RESET)
         {
             mIsOverLayMode = overLayMode;
         }
@@ -246,6 +643,26 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         return mIsOverLayMode;
     }
 
+    @Override
+    public void setTranslationMode(boolean translationMode)
+    {
+        if (mDragHelper.getViewDragState() == VerticalDragHelper.STATE_IDLE && getState() == State.RESET)
+        {
+            mIsTranslationMode = translationMode;
+            if (!translationMode)
+            {
+                resetTranslation();
+                requestLayout();
+            }
+        }
+    }
+
+    @Override
+    public boolean isTranslationMode()
+    {
+        return mIsTranslationMode;
+    }
+
     @Override
     public void setComsumeScrollPercent(float comsumeScrollPercent)
     {
@@ -258,6 +675,7 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
             comsumeScrollPercent = 1;
         }
         mComsumeScrollPercent = comsumeScrollPercent;
+        mDragHelper.setComsumeScrollPercent(comsumeScrollPercent);
     }
 
     @Override
@@ -267,7 +685,26 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         {
             durationShowRefreshResult = DEFAULT_DURATION_SHOW_REFRESH_RESULT;
         }
-        mDurationShowRefreshResult = durationShowRefreshResult;
+        mStateMachine.setDurationShowRefreshResult(durationShowRefreshResult);
+    }
+
+    @Override
+    public void setSpringConfig(State state, float stiffness, float dampingRatio)
+    {
+        if (state == null)
+        {
+            return;
+        }
+        if (stiffness <= 0)
+        {
+            stiffness = DEFAULT_SPRING_STIFFNESS;
+        }
+        if (dampingRatio <= 0)
+        {
+            dampingRatio = DEFAULT_SPRING_DAMPING_RATIO;
+        }
+        mSpringStiffness[state.ordinal()] = stiffness;
+        mSpringDampingRatio[state.ordinal()] = dampingRatio;
     }
 
     @Override
@@ -283,10 +720,10 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         {
             return;
         }
-        if (mState == State.RESET)
+        showLoadingView(ensureHeaderView());
+        beginGesture();
+        if (mStateMachine.startRefreshing(PullState.DIRECTION_FROM_HEADER))
         {
-            setDirection(Direction.FROM_HEADER);
-            setState(State.REFRESHING);
             smoothScrollViewByState();
         }
     }
@@ -298,10 +735,10 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         {
             return;
         }
-        if (mState == State.RESET)
+        showLoadingView(ensureFooterView());
+        beginGesture();
+        if (mStateMachine.startRefreshing(PullState.DIRECTION_FROM_FOOTER))
         {
-            setDirection(Direction.FROM_FOOTER);
-            setState(State.REFRESHING);
             smoothScrollViewByState();
         }
     }
@@ -309,9 +746,8 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
     @Override
     public void stopRefreshing()
     {
-        if (mState != State.RESET && mState != State.REFRESH_FINISH)
+        if (mStateMachine.stopRefreshing())
         {
-            setState(State.REFRESH_FINISH);
             smoothScrollViewByState();
         }
     }
@@ -319,34 +755,25 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
     @Override
     public void stopRefreshingWithResult(boolean success)
     {
-        if (mState == State.REFRESHING)
-        {
-            if (success)
-            {
-                setState(State.REFRESH_SUCCESS);
-            } else
-            {
-                setState(State.REFRESH_FAILURE);
-            }
-        }
+        mStateMachine.stopRefreshingWithResult(success);
     }
 
     @Override
     public boolean isRefreshing()
     {
-        return mState == State.REFRESHING;
+        return mStateMachine.getState() == PullState.STATE_REFRESHING;
     }
 
     @Override
     public State getState()
     {
-        return mState;
+        return STATES[mStateMachine.getState()];
     }
 
     @Override
     public SDPullToRefreshLoadingView getHeaderView()
     {
-        return mHeaderView;
+        return ensureHeaderView();
     }
 
     @Override
@@ -357,15 +784,21 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
             return;
         }
 
-        removeView(mHeaderView);
+        if (mHeaderView != null)
+        {
+            unhideLoadingView(mHeaderView);
+            removeView(mHeaderView);
+        }
         mHeaderView = headerView;
-        addView(mHeaderView);
+        mIsHeaderViewRecyclable = false;
+        mHeaderMeasureCache.invalidate();
+        addLoadingView(headerView);
     }
 
     @Override
     public SDPullToRefreshLoadingView getFooterView()
     {
-        return mFooterView;
+        return ensureFooterView();
     }
 
     @Override
@@ -376,9 +809,96 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
             return;
         }
 
-        removeView(mFooterView);
+        if (mFooterView != null)
+        {
+            unhideLoadingView(mFooterView);
+            removeView(mFooterView);
+        }
         mFooterView = footerView;
-        addView(mFooterView);
+        mIsFooterViewRecyclable = false;
+        mFooterMeasureCache.invalidate();
+        addLoadingView(footerView);
+    }
+
+    /**
+     * 返回加载view的类型，不会创建还没有创建的加载view
+     *
+     * @param loadingView
+     * @return 不是当前的HeaderView或者FooterView返回null
+     */
+    public LoadingViewType getLoadingViewType(SDPullToRefreshLoadingView loadingView)
+    {
+        if (loadingView == null)
+        {
+            return null;
+        }
+        if (loadingView == mHeaderView)
+        {
+            return LoadingViewType.HEADER;
+        } else if (loadingView == mFooterView)
+        {
+            return LoadingViewType.FOOTER;
+        } else
+        {
+            return null;
+        }
+    }
+
+    /**
+     * 设置加载view的缓存，默认创建加载view的时候先从缓存中取，{@link #recycleLoadingViews()}的时候放回缓存<br>
+     * 同一个页面中的多个SDPullToRefreshView(比如ViewPager中的每一页)可以共用一个缓存
+     *
+     * @param loadingViewPool
+     */
+    public void setLoadingViewPool(LoadingViewPool loadingViewPool)
+    {
+        mLoadingViewPool = loadingViewPool;
+    }
+
+    public LoadingViewPool getLoadingViewPool()
+    {
+        return mLoadingViewPool;
+    }
+
+    /**
+     * 把默认创建的加载view移除并放回缓存，下一次拖动或者刷新的时候再重新取出来<br>
+     * 只有设置了缓存，并且处于{@link State#RESET}状态没有拖动的时候才会回收；
+     * 通过{@link #setHeaderView(SDPullToRefreshLoadingView)}，{@link #setFooterView(SDPullToRefreshLoadingView)}或者重写onCreateXXXView()设置的加载view不会回收<br>
+     * 一般在ViewPager的destroyItem()或者页面被复用之前调用
+     */
+    public void recycleLoadingViews()
+    {
+        if (mLoadingViewPool == null || !isDragIdle() || getState() != State.RESET)
+        {
+            return;
+        }
+
+        if (mHeaderView != null && mIsHeaderViewRecyclable)
+        {
+            final SDPullToRefreshLoadingView headerView = mHeaderView;
+            unhideLoadingView(headerView);
+            mHeaderView = null;
+            mIsHeaderViewRecyclable = false;
+            mHeaderMeasureCache.invalidate();
+            recycleLoadingView(headerView);
+        }
+        if (mFooterView != null && mIsFooterViewRecyclable)
+        {
+            final SDPullToRefreshLoadingView footerView = mFooterView;
+            unhideLoadingView(footerView);
+            mFooterView = null;
+            mIsFooterViewRecyclable = false;
+            mFooterMeasureCache.invalidate();
+            recycleLoadingView(footerView);
+        }
+    }
+
+    private void recycleLoadingView(SDPullToRefreshLoadingView loadingView)
+    {
+        removeView(loadingView);
+        loadingView.setTranslationY(0);
+        ViewCompat.setZ(loadingView, 0);
+        mLoadingViewPool.release(loadingView);
     }
 
     @Override
@@ -390,7 +910,7 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
     @Override
     public Direction getDirection()
     {
-        return mLastDirection;
+        return DIRECTIONS[mStateMachine.getLastDirection()];
     }
 
     @Override
@@ -398,10 +918,10 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
     {
         if (getDirection() == Direction.FROM_HEADER)
         {
-            return mHeaderView.getTop() - getTopHeaderViewReset();
+            return mHeaderView == null ? 0 : getChildTop(mHeaderView) - getTopHeaderViewReset();
         } else
         {
-            return mFooterView.getTop() - getTopFooterViewReset();
+            return mFooterView == null ? 0 : getChildTop(mFooterView) - getTopFooterViewReset();
         }
     }
 
@@ -410,30 +930,75 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
     @Override
     public void computeScroll()
     {
-        if (mViewDragHelper.continueSettling(true))
+        if (mDragHelper.getViewDragState() != VerticalDragHelper.STATE_SETTLING)
         {
-            if (mLogUtils.isDebug())
-            {
-                int top = 0;
-                if (getDirection() == Direction.FROM_HEADER)
-                {
-                    top = mHeaderView.getTop();
-                } else
-                {
-                    top = mFooterView.getTop();
-                }
-                mLogUtils.i("computeScroll:" + top + " " + mState);
-            }
+            return;
+        }
+
+        beginTrace(Tracer.SECTION_COMPUTE_SCROLL);
+        try
+        {
+            computeScrollInternal();
+        } finally
+        {
+            endTrace();
+        }
+    }
 
+    private void computeScrollInternal()
+    {
+        if (mDragHelper.continueSettling())
+        {
+            mTraceLog.settleFrame(getChildTop(mDragHelper.getCapturedView()), mStateMachine.getState());
             ViewCompat.postInvalidateOnAnimation(this);
         } else
         {
-            mLogUtils.i("computeScroll finish:" + mState);
+            mTraceLog.settleFinish(mStateMachine.getState());
+            appendEvent(EventRingLog.EVENT_SETTLE_FINISH);
         }
     }
 
     private SDTouchHelper mTouchHelper = new SDTouchHelper();
 
+    @Override
+    protected void dispatchDraw(Canvas canvas)
+    {
+        super.dispatchDraw(canvas);
+        if (mTraceLog.isEnabled() && mDebugOverlay != null)
+        {
+            mDebugOverlay.draw(canvas, getDrawingTime(), getState(), getDirection(), getScrollDistance(), mDragHelper.getVelocity());
+            if (!isDragIdle())
+            {
+                // translationY移动的模式下child移动不会重绘父view，拖动和滚动的时候每一帧都刷新
+                ViewCompat.postInvalidateOnAnimation(this);
+            }
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev)
+    {
+        mTraceLog.touch(ev.getAction(), ev.getRawX(), ev.getRawY());
+        if (mGestureRecorder != null)
+        {
+            // onInterceptTouchEvent和onTouchEvent收到的事件都会经过这里，每个事件只记录一次
+            mGestureRecorder.recordTouch(ev);
+        }
+        if (mInputLatencyTracker != null && ev.getAction() == MotionEvent.ACTION_DOWN)
+        {
+            mInputLatencyTracker.onGestureStart();
+        }
+
+        final boolean result = super.dispatchTouchEvent(ev);
+
+        if (mInputLatencyTracker != null
+                && (ev.getAction() == MotionEvent.ACTION_UP || ev.getAction() == MotionEvent.ACTION_CANCEL))
+        {
+            mInputLatencyTracker.onGestureEnd();
+        }
+        return result;
+    }
+
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev)
     {
@@ -450,17 +1015,25 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         switch (ev.getAction())
         {
             case MotionEvent.ACTION_DOWN:
+                beginGesture();
+                if (mRefreshMetrics != null)
+                {
+                    mRefreshMetrics.onTouchDown(ev.getEventTime());
+                }
                 mTouchHelper.setNeedIntercept(false);
-                SDTouchHelper.requestDisallowInterceptTouchEvent(this, false);
+                mTouchHelper.setDisallowParentIntercept(this, false);
+                // 新的手势开始，重新判断RefreshView是否滚动到顶部或者底部
+                mEdgeStateTracker.invalidate();
 
-                // 如果ViewDragHelper未收到过ACTION_DOWN事件，则不会处理后续的拖动逻辑
-                mViewDragHelper.processTouchEvent(ev);
+                // 记录ACTION_DOWN事件的位置，拖动的时候从这个位置开始计算距离
+                mDragHelper.processTouchEvent(ev);
                 break;
             case MotionEvent.ACTION_MOVE:
                 if (canPull())
                 {
                     mTouchHelper.setNeedIntercept(true);
-                    SDTouchHelper.requestDisallowInterceptTouchEvent(this, true);
+                    mTouchHelper.setDisallowParentIntercept(this, true);
+                    trackInput(ev);
                 }
                 break;
         }
@@ -469,16 +1042,17 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
 
     private boolean checkMoveParams()
     {
-        return (mCheckDragDegree ? mTouchHelper.getDegreeYFrom(SDTouchHelper.EVENT_DOWN) < 40 : true);
+        return mTouchHelper.isMoveYOverSlopFrom(SDTouchHelper.EVENT_DOWN)
+                && (mCheckDragDegree ? mTouchHelper.isDegreeYLessThanFrom(SDTouchHelper.EVENT_DOWN, MAX_DRAG_TAN_SQUARED) : true);
     }
 
     private boolean isViewReset()
     {
-        if (!(mViewDragHelper.getViewDragState() == ViewDragHelper.STATE_IDLE))
+        if (!(mDragHelper.getViewDragState() == VerticalDragHelper.STATE_IDLE))
         {
             return false;
         }
-        if (mState != State.RESET)
+        if (getState() != State.RESET)
         {
             return false;
         }
@@ -494,16 +1068,14 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
     {
         return mTouchHelper.isMoveBottomFrom(SDTouchHelper.EVENT_DOWN)
                 && (mMode == Mode.BOTH || mMode == Mode.PULL_FROM_HEADER)
-                && SDTouchHelper.isScrollToTop(mRefreshView)
-                && (mPullCondition != null ? mPullCondition.canPullFromHeader() : true);
+                && mEdgeStateTracker.canPullFromHeader();
     }
 
     private boolean canPullFromFooter()
     {
         return mTouchHelper.isMoveTopFrom(SDTouchHelper.EVENT_DOWN)
                 && (mMode == Mode.BOTH || mMode == Mode.PULL_FROM_FOOTER)
-                && SDTouchHelper.isScrollToBottom(mRefreshView)
-                && (mPullCondition != null ? mPullCondition.canPullFromFooter() : true);
+                && mEdgeStateTracker.canPullFromFooter();
     }
 
     @Override
@@ -520,32 +1092,34 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
             case MotionEvent.ACTION_MOVE:
                 if (mTouchHelper.isNeedCosume())
                 {
+                    trackInput(event);
                     processMoveEvent(event);
                 } else
                 {
                     if (mTouchHelper.isNeedIntercept() || canPull())
                     {
+                        trackInput(event);
                         mTouchHelper.setNeedCosume(true);
                         mTouchHelper.setNeedIntercept(true);
-                        SDTouchHelper.requestDisallowInterceptTouchEvent(this, true);
+                        mTouchHelper.setDisallowParentIntercept(this, true);
                     } else
                     {
                         mTouchHelper.setNeedCosume(false);
                         mTouchHelper.setNeedIntercept(false);
-                        SDTouchHelper.requestDisallowInterceptTouchEvent(this, false);
+                        mTouchHelper.setDisallowParentIntercept(this, false);
                     }
                 }
                 break;
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
-                mViewDragHelper.processTouchEvent(event);
+                mDragHelper.processTouchEvent(event);
 
                 mTouchHelper.setNeedCosume(false);
                 mTouchHelper.setNeedIntercept(false);
-                SDTouchHelper.requestDisallowInterceptTouchEvent(this, false);
+                mTouchHelper.setDisallowParentIntercept(this, false);
                 break;
             default:
-                mViewDragHelper.processTouchEvent(event);
+                mDragHelper.processTouchEvent(event);
                 break;
         }
 
@@ -558,32 +1132,28 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
     private void processMoveEvent(MotionEvent event)
     {
         //设置方向
-        if (mTouchHelper.isMoveBottomFrom(SDTouchHelper.EVENT_DOWN))
-        {
-            setDirection(Direction.FROM_HEADER);
-        } else if (mTouchHelper.isMoveTopFrom(SDTouchHelper.EVENT_DOWN))
-        {
-            setDirection(Direction.FROM_FOOTER);
-        }
+        mStateMachine.setDirectionByMove(mTouchHelper.getDeltaYFrom(SDTouchHelper.EVENT_DOWN));
 
         if (getDirection() == Direction.FROM_HEADER)
         {
             // 捕获HeaderView
-            if (mViewDragHelper.getCapturedView() != mHeaderView)
+            showLoadingView(ensureHeaderView());
+            if (mDragHelper.getCapturedView() != mHeaderView)
             {
-                mViewDragHelper.captureChildView(mHeaderView, event.getPointerId(event.getActionIndex()));
+                mDragHelper.captureChildView(mHeaderView, event.getPointerId(event.getActionIndex()));
             }
         } else if (getDirection() == Direction.FROM_FOOTER)
         {
             // 捕获FooterView
-            if (mViewDragHelper.getCapturedView() != mFooterView)
+            showLoadingView(ensureFooterView());
+            if (mDragHelper.getCapturedView() != mFooterView)
             {
-                mViewDragHelper.captureChildView(mFooterView, event.getPointerId(event.getActionIndex()));
+                mDragHelper.captureChildView(mFooterView, event.getPointerId(event.getActionIndex()));
             }
         }
 
         // 处理view的拖动逻辑
-        mViewDragHelper.processTouchEvent(event);
+        mDragHelper.processTouchEvent(event);
     }
 
     /**
@@ -604,9 +1174,9 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
                 }
             } else
             {
-                ViewCompat.offsetTopAndBottom(mRefreshView, dy);
+                offsetChild(mRefreshView, dy);
             }
-            mHeaderView.onViewPositionChanged(this);
+            notifyLoadingViewPositionChanged(mHeaderView);
         } else
         {
             if (mIsOverLayMode)
@@ -618,15 +1188,53 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
                 }
             } else
             {
-                ViewCompat.offsetTopAndBottom(mRefreshView, dy);
+                offsetChild(mRefreshView, dy);
             }
-            mFooterView.onViewPositionChanged(this);
+            notifyLoadingViewPositionChanged(mFooterView);
         }
 
         if (mOnViewPositionChangedCallback != null)
         {
             mOnViewPositionChangedCallback.onViewPositionChanged(this);
         }
+        if (mGestureRecorder != null)
+        {
+            mGestureRecorder.recordPosition(SystemClock.uptimeMillis(), getScrollDistance());
+        }
+    }
+
+    /**
+     * 移动child
+     *
+     * @param child
+     * @param dy    要移动的距离
+     */
+    private void offsetChild(View child, int dy)
+    {
+        if (mIsTranslationMode)
+        {
+            child.setTranslationY(child.getTranslationY() + dy);
+        } else
+        {
+            ViewCompat.offsetTopAndBottom(child, dy);
+        }
+    }
+
+    /**
+     * 返回child当前显示的top值，translationY移动的模式下包括translationY
+     *
+     * @param child
+     * @return
+     */
+    private int getChildTop(View child)
+    {
+        if (mIsTranslationMode)
+        {
+            return child.getTop() + (int) child.getTranslationY();
+        } else
+        {
+            return child.getTop();
+        }
     }
 
     /**
@@ -637,128 +1245,233 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         int distance = Math.abs(getScrollDistance());
         if (getDirection() == Direction.FROM_HEADER)
         {
-            if (mHeaderView.canRefresh(distance))
+            mStateMachine.updateStateByMoveDistance(mHeaderView.canRefresh(distance));
+        } else
+        {
+            mStateMachine.updateStateByMoveDistance(mFooterView.canRefresh(distance));
+        }
+    }
+
+    private void initStateMachine()
+    {
+        mStateMachine = new PullStateMachine(new Clock()
+        {
+            @Override
+            public long uptimeMillis()
             {
-                setState(State.RELEASE_TO_REFRESH);
-            } else
+                return SystemClock.uptimeMillis();
+            }
+        }, new Scheduler()
+        {
+            @Override
+            public void schedule(Runnable runnable, long delayMillis)
             {
-                setState(State.PULL_TO_REFRESH);
+                postDelayed(runnable, delayMillis);
             }
-        } else
+
+            @Override
+            public void cancel(Runnable runnable)
+            {
+                removeCallbacks(runnable);
+            }
+        }, new PullStateMachine.Callback()
         {
-            if (mFooterView.canRefresh(distance))
+            @Override
+            public void onStateChanged(int newState, int oldState)
             {
-                setState(State.RELEASE_TO_REFRESH);
-            } else
+                SDPullToRefreshView.this.onStateChanged(STATES[newState], STATES[oldState]);
+            }
+
+            @Override
+            public void onDirectionChanged(int direction)
             {
-                setState(State.PULL_TO_REFRESH);
+                mTraceLog.directionChanged(direction);
             }
-        }
+
+            @Override
+            public void onRefresh(int direction)
+            {
+                notifyRefreshCallback();
+            }
+
+            @Override
+            public void onShowRefreshResultFinish()
+            {
+                stopRefreshing();
+            }
+        });
+        mStateMachine.setDurationShowRefreshResult(DEFAULT_DURATION_SHOW_REFRESH_RESULT);
     }
 
     /**
-     * 设置状态
+     * 状态变化
      *
      * @param state
+     * @param oldState
      */
-    private void setState(State state)
+    private void onStateChanged(State state, State oldState)
     {
-        if (mState == state)
+        beginTrace(Tracer.SECTION_SET_STATE);
+        try
         {
-            return;
+            onStateChangedInternal(state, oldState);
+        } finally
+        {
+            endTrace();
         }
+    }
 
-        final State oldState = mState;
-        mState = state;
-
-        if (mLogUtils.isDebug())
+    private void onStateChangedInternal(State state, State oldState)
+    {
+        mTraceLog.stateChanged(state.ordinal(), oldState.ordinal());
+        appendEvent(EventRingLog.EVENT_STATE);
+        if (mPerformanceMonitor != null)
         {
-            if (mState == State.RESET)
-            {
-                mLogUtils.e("setState:" + mState);
-            } else
-            {
-                mLogUtils.i("setState:" + mState);
-            }
+            mPerformanceMonitor.onStateChanged(state);
         }
-
-        removeCallbacks(mStopRefreshingRunnable);
-        if (mState == State.REFRESH_SUCCESS || mState == State.REFRESH_FAILURE)
+        countGesture(GestureCounter.COUNTER_STATE_CHANGED);
+        if (mGestureRecorder != null)
         {
-            postDelayed(mStopRefreshingRunnable, mDurationShowRefreshResult);
+            mGestureRecorder.recordState(SystemClock.uptimeMillis(), state.ordinal(), mStateMachine.getDirection());
+        }
+        if (mRefreshMetrics != null)
+        {
+            mRefreshMetrics.onStateChanged(state.ordinal(), oldState.ordinal(), mStateMachine.getLastDirection(), SystemClock.uptimeMillis());
         }
 
         //通知view改变状态
-        if (getDirection() == Direction.FROM_HEADER)
+        beginTrace(Tracer.SECTION_LOADING_VIEW_STATE_CHANGED);
+        try
         {
-            mHeaderView.onStateChanged(mState, oldState, this);
-        } else
+            if (getDirection() == Direction.FROM_HEADER)
+            {
+                if (mHeaderView != null)
+                {
+                    countGesture(GestureCounter.COUNTER_LOADING_VIEW_STATE_CHANGED);
+                    mHeaderView.onStateChanged(state, oldState, this);
+                }
+            } else
+            {
+                if (mFooterView != null)
+                {
+                    countGesture(GestureCounter.COUNTER_LOADING_VIEW_STATE_CHANGED);
+                    mFooterView.onStateChanged(state, oldState, this);
+                }
+            }
+        } finally
         {
-            mFooterView.onStateChanged(mState, oldState, this);
+            endTrace();
         }
 
         //通知状态变化回调
         if (mOnStateChangedCallback != null)
         {
-            mOnStateChangedCallback.onStateChanged(mState, oldState, this);
+            mOnStateChangedCallback.onStateChanged(state, oldState, this);
         }
 
-        if (mState == State.RESET)
+        if (state == State.RESET)
         {
-            requestLayoutIfNeed();
+            if (mIsTranslationMode)
+            {
+                resetPositionWithoutLayout();
+            } else
+            {
+                requestLayoutIfNeed();
+            }
+            hideLoadingViewsIfIdle();
 
-            setDirection(Direction.NONE);
+            if (mGestureCounter != null)
+            {
+                mGestureCounter.end();
+            }
         }
     }
 
     private void notifyRefreshCallback()
     {
-        mLogUtils.i("notifyRefreshCallback");
+        mTraceLog.refreshCallback(getDirection().ordinal());
+        appendEvent(EventRingLog.EVENT_REFRESH_CALLBACK);
+        countGesture(GestureCounter.COUNTER_REFRESH_CALLBACK);
 
         if (mOnRefreshCallback != null)
         {
-            if (getDirection() == Direction.FROM_HEADER)
+            beginTrace(Tracer.SECTION_REFRESH_CALLBACK);
+            try
             {
-                mOnRefreshCallback.onRefreshingFromHeader(this);
-            } else
+                if (getDirection() == Direction.FROM_HEADER)
+                {
+                    mOnRefreshCallback.onRefreshingFromHeader(this);
+                } else
+                {
+                    mOnRefreshCallback.onRefreshingFromFooter(this);
+                }
+            } finally
             {
-                mOnRefreshCallback.onRefreshingFromFooter(this);
+                endTrace();
             }
         }
     }
 
+    private void notifyLoadingViewPositionChanged(SDPullToRefreshLoadingView loadingView)
+    {
+        beginTrace(Tracer.SECTION_LOADING_VIEW_POSITION_CHANGED);
+        try
+        {
+            loadingView.onViewPositionChanged(this);
+        } finally
+        {
+            endTrace();
+        }
+    }
+
     private void requestLayoutIfNeed()
     {
         boolean needRequestLayout = false;
         if (getDirection() == Direction.FROM_HEADER)
         {
-            if (mHeaderView.getTop() != getTopHeaderViewReset())
+            if (getChildTop(mHeaderView) != getTopHeaderViewReset())
             {
                 needRequestLayout = true;
             }
         } else if (getDirection() == Direction.FROM_FOOTER)
         {
-            if (mFooterView.getTop() != getTopFooterViewReset())
+            if (getChildTop(mFooterView) != getTopFooterViewReset())
             {
                 needRequestLayout = true;
             }
         }
         if (needRequestLayout)
         {
-            mLogUtils.i("requestLayout when reset");
+            mTraceLog.requestLayout();
 
             requestLayout();
         }
     }
 
-    private Runnable mStopRefreshingRunnable = new Runnable()
+    /**
+     * translationY移动的模式下，不重新布局，直接把view移动到Reset的位置
+     */
+    private void resetPositionWithoutLayout()
     {
-        @Override
-        public void run()
+        // translationY移动的模式下，child总是布局在Reset的位置
+        resetTranslation();
+    }
+
+    private void resetTranslation()
+    {
+        if (mHeaderView != null && mHeaderView.getTranslationY() != 0)
         {
-            stopRefreshing();
+            mHeaderView.setTranslationY(0);
         }
-    };
+        if (mFooterView != null && mFooterView.getTranslationY() != 0)
+        {
+            mFooterView.setTranslationY(0);
+        }
+        if (mRefreshView != null && mRefreshView.getTranslationY() != 0)
+        {
+            mRefreshView.setTranslationY(0);
+        }
+    }
 
     /**
      * 根据当前状态滚动view到对应的位置
@@ -767,20 +1480,28 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
     {
         if (mHasOnLayout)
         {
-            smoothScrollViewByStateReal();
+            smoothScrollViewByStateReal(0);
         } else
         {
-            mUpdatePositionRunnable = new Runnable()
+            mIsUpdatePositionPending = true;
+        }
+    }
+
+    /**
+     * 布局后根据状态滚动view，只创建一次，避免每次调用{@link #smoothScrollViewByState()}都创建新的对象
+     */
+    private final Runnable mUpdatePositionRunnable = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            if (mIsUpdatePositionPending)
             {
-                @Override
-                public void run()
-                {
-                    smoothScrollViewByStateReal();
-                    mUpdatePositionRunnable = null;
-                }
-            };
+                mIsUpdatePositionPending = false;
+                smoothScrollViewByStateReal(0);
+            }
         }
-    }
+    };
 
     /**
      * 返回与当前view顶部对齐的值
@@ -809,7 +1530,7 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
      */
     private int getTopHeaderViewReset()
     {
-        return getTopAlignTop() - mHeaderView.getMeasuredHeight();
+        return getTopAlignTop() - (mHeaderView == null ? 0 : mHeaderView.getMeasuredHeight());
     }
 
     /**
@@ -822,16 +1543,37 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         return getTopAlignBottom();
     }
 
+    /**
+     * 用弹簧滚动view到指定的位置，使用当前状态对应的弹簧参数
+     *
+     * @param view
+     * @param endY
+     * @param velocity 开始速度（像素/秒）
+     * @return true-开始滚动
+     */
+    private boolean startSettle(View view, int endY, float velocity)
+    {
+        final int index = mStateMachine.getState();
+        if (mDragHelper.smoothSlideViewTo(view, endY, velocity, mSpringStiffness[index], mSpringDampingRatio[index]))
+        {
+            ViewCompat.postInvalidateOnAnimation(this);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * 根据当前状态滚动view到对应的位置
+     *
+     * @param velocity 开始速度（像素/秒）
      */
-    private void smoothScrollViewByStateReal()
+    private void smoothScrollViewByStateReal(float velocity)
     {
         int endY = 0;
         View view = null;
 
         boolean smoothScrollViewStarted = false;
-        switch (mState)
+        switch (getState())
         {
             case RESET:
             case PULL_TO_REFRESH:
@@ -846,12 +1588,12 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
                     endY = getTopFooterViewReset();
                 }
 
-                if (mViewDragHelper.smoothSlideViewTo(view, view.getLeft(), endY))
+                if (view != null && startSettle(view, endY, velocity))
                 {
-                    mLogUtils.i("smoothScrollViewByState:" + view.getTop() + "," + endY + " " + mState);
+                    mTraceLog.settleStart(getChildTop(view), endY, mStateMachine.getState());
+                    appendEvent(EventRingLog.EVENT_SETTLE_START);
 
                     smoothScrollViewStarted = true;
-                    invalidate();
                 }
                 break;
             case RELEASE_TO_REFRESH:
@@ -866,23 +1608,23 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
                     endY = getTopFooterViewReset() - mFooterView.getRefreshHeight();
                 }
 
-                if (mViewDragHelper.smoothSlideViewTo(view, view.getLeft(), endY))
+                if (startSettle(view, endY, velocity))
                 {
-                    mLogUtils.i("smoothScrollViewByState:" + view.getTop() + "," + endY + " " + mState);
+                    mTraceLog.settleStart(getChildTop(view), endY, mStateMachine.getState());
+                    appendEvent(EventRingLog.EVENT_SETTLE_START);
 
                     smoothScrollViewStarted = true;
-                    invalidate();
                 }
                 break;
         }
 
         //通知刷新回调
-        if (mState == State.REFRESHING)
+        if (getState() == State.REFRESHING)
         {
             if (smoothScrollViewStarted)
             {
                 //如果滚动触发成功，则滚动结束会通知刷新回调
-            } else
+            } else if (mDragHelper.getViewDragState() == VerticalDragHelper.STATE_IDLE)
             {
                 //如果滚动未触发成功，则立即通知刷新回调
                 notifyRefreshCallback();
@@ -890,97 +1632,140 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         }
     }
 
-    /**
-     * 设置拖动方向
-     *
-     * @param direction
-     */
-    private void setDirection(Direction direction)
+    @Override
+    protected void onFinishInflate()
     {
-        if (mDirection == direction)
-        {
-            return;
-        }
-        if (direction != Direction.NONE)
+        super.onFinishInflate();
+
+        // HeaderView和FooterView在需要的时候才创建，这里可能还没有添加
+        View refreshView = null;
+        int refreshViewCount = 0;
+        for (int i = 0; i < getChildCount(); i++)
         {
-            if (mDirection == Direction.NONE)
+            final View child = getChildAt(i);
+            if (child != mHeaderView && child != mFooterView)
             {
-                mDirection = direction;
-                mLastDirection = direction;
-
-                mLogUtils.i("setDirection:" + mDirection);
+                refreshView = child;
+                refreshViewCount++;
             }
-        } else
+        }
+        if (refreshViewCount < 1)
         {
-            mDirection = Direction.NONE;
-
-            mLogUtils.i("setDirection:" + mDirection);
+            throw new IllegalArgumentException("you must add one child to SDPullToRefreshView in your xml file");
+        }
+        if (refreshViewCount > 1)
+        {
+            throw new IllegalArgumentException("you can only add one child to SDPullToRefreshView in your xml file");
         }
+
+        mRefreshView = refreshView;
+        mEdgeStateTracker.setView(mRefreshView);
     }
 
     /**
-     * 真实距离根据消耗比例算出的最终距离
+     * 返回HeaderView，还没有创建的时候创建
      *
-     * @param distance
      * @return
      */
-    private int getComsumedDistance(float distance)
+    private SDPullToRefreshLoadingView ensureHeaderView()
     {
-        distance -= distance * mComsumeScrollPercent;
-        return (int) distance;
+        if (mHeaderView == null)
+        {
+            SDPullToRefreshLoadingView headerView = onCreateHeaderView();
+            final boolean recyclable = headerView == null;
+            if (headerView == null)
+            {
+                headerView = obtainLoadingView(LoadingViewType.HEADER);
+            }
+            setHeaderView(headerView);
+            mIsHeaderViewRecyclable = recyclable;
+        }
+        return mHeaderView;
     }
 
-    @Override
-    protected void onFinishInflate()
+    /**
+     * 返回FooterView，还没有创建的时候创建
+     *
+     * @return
+     */
+    private SDPullToRefreshLoadingView ensureFooterView()
     {
-        super.onFinishInflate();
-
-        final int childCount = getChildCount();
-        if (childCount < 3)
+        if (mFooterView == null)
         {
-            throw new IllegalArgumentException("you must add one child to SDPullToRefreshView in your xml file");
+            SDPullToRefreshLoadingView footerView = onCreateFooterView();
+            final boolean recyclable = footerView == null;
+            if (footerView == null)
+            {
+                footerView = obtainLoadingView(LoadingViewType.FOOTER);
+            }
+            setFooterView(footerView);
+            mIsFooterViewRecyclable = recyclable;
         }
-        if (childCount > 3)
+        return mFooterView;
+    }
+
+    private void addLoadingView(SDPullToRefreshLoadingView loadingView)
+    {
+        // 和原来在构造方法中添加的顺序一致，加载view在RefreshView的下面
+        addView(loadingView, 0);
+        if (mHasOnLayout)
         {
-            throw new IllegalArgumentException("you can only add one child to SDPullToRefreshView in your xml file");
+            // 第一次拖动或者刷新的时候才创建，立即测量并布局到静止的位置，不需要等下一次布局
+            measureAndLayoutLoadingView(loadingView);
         }
+    }
 
-        mRefreshView = getChildAt(2);
+    private void measureAndLayoutLoadingView(SDPullToRefreshLoadingView loadingView)
+    {
+        measureLoadingView(loadingView, mLoadingViewWidthMeasureSpec, mLoadingViewHeightMeasureSpec);
+
+        final int topReset = loadingView == mHeaderView ? getTopHeaderViewReset() : getTopFooterViewReset();
+        layoutChild(loadingView, getPaddingLeft(), topReset, topReset, getMeasureCache(loadingView).consumeLayoutRequired());
     }
 
-    private void addLoadingViews()
+    /**
+     * 创建默认的加载view，优先从缓存中取，其次是{@link LoadingViewFactory}，然后是资源中配置的类名，最后是{@link SimpleTextLoadingView}
+     *
+     * @param type
+     * @return
+     */
+    private SDPullToRefreshLoadingView obtainLoadingView(LoadingViewType type)
     {
-        // HeaderView
-        SDPullToRefreshLoadingView headerView = onCreateHeaderView();
-        if (headerView == null)
+        final boolean isHeader = type == LoadingViewType.HEADER;
+        final LoadingViewFactory factory = LoadingViewRegistry.getFactory();
+        final Class<? extends SDPullToRefreshLoadingView> factoryClass = factory == null ? null :
+                (isHeader ? factory.getHeaderViewClass() : factory.getFooterViewClass());
+
+        final String className;
+        if (factoryClass != null)
         {
-            String headerClassName = getResources().getString(R.string.lib_ptr_header_class);
-            if (!TextUtils.isEmpty(headerClassName))
-            {
-                headerView = SDPullToRefreshLoadingView.getInstanceByClassName(headerClassName, getContext());
-            }
-        }
-        if (headerView == null)
+            className = factoryClass.getName();
+        } else
         {
-            headerView = new SimpleTextLoadingView(getContext());
+            className = getResources().getString(isHeader ? R.string.lib_ptr_header_class : R.string.lib_ptr_footer_class);
         }
-        setHeaderView(headerView);
+        final boolean isDefault = TextUtils.isEmpty(className);
 
-        // FooterView
-        SDPullToRefreshLoadingView footerView = onCreateFooterView();
-        if (footerView == null)
+        SDPullToRefreshLoadingView loadingView = null;
+        if (mLoadingViewPool != null)
+        {
+            loadingView = mLoadingViewPool.acquire(isDefault ? SimpleTextLoadingView.class.getName() : className, getContext());
+        }
+        if (loadingView == null)
         {
-            String footerClassName = getResources().getString(R.string.lib_ptr_footer_class);
-            if (footerClassName != null)
+            if (factoryClass != null)
+            {
+                loadingView = isHeader ? factory.createHeaderView(getContext()) : factory.createFooterView(getContext());
+            } else if (!isDefault)
             {
-                footerView = SDPullToRefreshLoadingView.getInstanceByClassName(footerClassName, getContext());
+                loadingView = LoadingViewRegistry.newInstance(className, getContext());
             }
         }
-        if (footerView == null)
+        if (loadingView == null)
         {
-            footerView = new SimpleTextLoadingView(getContext());
+            loadingView = new SimpleTextLoadingView(getContext());
         }
-        setFooterView(footerView);
+        return loadingView;
     }
 
     /**
@@ -1027,6 +1812,20 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
+    {
+        countGesture(GestureCounter.COUNTER_MEASURE);
+
+        beginTrace(Tracer.SECTION_MEASURE);
+        try
+        {
+            measureInternal(widthMeasureSpec, heightMeasureSpec);
+        } finally
+        {
+            endTrace();
+        }
+    }
+
+    private void measureInternal(int widthMeasureSpec, int heightMeasureSpec)
     {
         final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
         int width = MeasureSpec.getSize(widthMeasureSpec);
@@ -1034,22 +1833,42 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         final int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         int height = MeasureSpec.getSize(heightMeasureSpec);
 
-        boolean needReMeasure = false;
-        int widthMeasureSpecLoadingView = widthMeasureSpec;
-        if (widthMode != MeasureSpec.EXACTLY)
+        // 加载view的MeasureSpec和内容都没有变化的时候不会重新测量，只有RefreshView请求重新布局的时候只测量RefreshView
+        final int heightMeasureSpecLoadingView = MeasureSpec.makeMeasureSpec(height, MeasureSpec.UNSPECIFIED);
+        int loadingViewWidth = 0;
+        int loadingViewHeight = 0;
+        if (widthMode == MeasureSpec.EXACTLY)
+        {
+            mLoadingViewWidthMeasureSpec = widthMeasureSpec;
+            mLoadingViewHeightMeasureSpec = heightMeasureSpecLoadingView;
+            measureVisibleLoadingView(mHeaderView);
+            measureVisibleLoadingView(mFooterView);
+            loadingViewHeight = Math.max(getMeasuredHeight(mHeaderView), getMeasuredHeight(mFooterView));
+        } else
         {
-            widthMeasureSpecLoadingView = MeasureSpec.makeMeasureSpec(width, MeasureSpec.UNSPECIFIED);
-            needReMeasure = true;
+            // 先按不限制宽度得到加载view想要的宽度，结果会被缓存
+            final int widthMeasureSpecLoadingView = MeasureSpec.makeMeasureSpec(width, MeasureSpec.UNSPECIFIED);
+            if (mHeaderView != null)
+            {
+                mHeaderMeasureCache.measureWrap(mHeaderView, getLoadingViewWidthMeasureSpec(mHeaderView, widthMeasureSpecLoadingView),
+                        getLoadingViewHeightMeasureSpec(mHeaderView, heightMeasureSpecLoadingView));
+                loadingViewWidth = mHeaderMeasureCache.getWrapWidth();
+                loadingViewHeight = mHeaderMeasureCache.getWrapHeight();
+            }
+            if (mFooterView != null)
+            {
+                mFooterMeasureCache.measureWrap(mFooterView, getLoadingViewWidthMeasureSpec(mFooterView, widthMeasureSpecLoadingView),
+                        getLoadingViewHeightMeasureSpec(mFooterView, heightMeasureSpecLoadingView));
+                loadingViewWidth = Math.max(loadingViewWidth, mFooterMeasureCache.getWrapWidth());
+                loadingViewHeight = Math.max(loadingViewHeight, mFooterMeasureCache.getWrapHeight());
+            }
         }
-        int heightMeasureSpecLoadingView = MeasureSpec.makeMeasureSpec(height, MeasureSpec.UNSPECIFIED);
-        measureLoadingView(mHeaderView, widthMeasureSpecLoadingView, heightMeasureSpecLoadingView);
-        measureLoadingView(mFooterView, widthMeasureSpecLoadingView, heightMeasureSpecLoadingView);
 
-        measureChild(mRefreshView, widthMeasureSpec, heightMeasureSpec);
+        measureRefreshView(widthMeasureSpec, heightMeasureSpec);
 
         if (widthMode != MeasureSpec.EXACTLY)
         {
-            int maxWidth = Math.max(mHeaderView.getMeasuredWidth(), mFooterView.getMeasuredWidth());
+            int maxWidth = loadingViewWidth;
             maxWidth = Math.max(maxWidth, mRefreshView.getMeasuredWidth());
             maxWidth += (getPaddingLeft() + getPaddingRight());
 
@@ -1069,7 +1888,7 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
             if (maxHeight == 0)
             {
                 //如果刷新view的高度为0，则给当前view一个默认高度，否则会出现代码触发刷新的时候HeaderView或者FooterView看不见
-                maxHeight = Math.max(mHeaderView.getMeasuredHeight(), mFooterView.getMeasuredHeight());
+                maxHeight = loadingViewHeight;
             }
             maxHeight += (getPaddingTop() + getPaddingBottom());
 
@@ -1083,132 +1902,144 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
             }
         }
 
-        if (needReMeasure)
+        if (widthMode != MeasureSpec.EXACTLY)
         {
-            widthMeasureSpecLoadingView = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
-            measureLoadingView(mHeaderView, widthMeasureSpecLoadingView, heightMeasureSpecLoadingView);
-            measureLoadingView(mFooterView, widthMeasureSpecLoadingView, heightMeasureSpecLoadingView);
+            mLoadingViewWidthMeasureSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+            mLoadingViewHeightMeasureSpec = heightMeasureSpecLoadingView;
+            measureVisibleLoadingView(mHeaderView);
+            measureVisibleLoadingView(mFooterView);
         }
 
         setMeasuredDimension(width, height);
     }
 
-    private void measureLoadingView(View loadingView, int widthMeasureSpec, int heightMeasureSpec)
+    private void measureRefreshView(int widthMeasureSpec, int heightMeasureSpec)
     {
-        LayoutParams params = loadingView.getLayoutParams();
-        loadingView.measure(getChildMeasureSpec(widthMeasureSpec, getPaddingLeft() + getPaddingRight(), params.width),
-                getChildMeasureSpec(heightMeasureSpec, 0, params.height));
+        final LayoutParams params = mRefreshView.getLayoutParams();
+        final int childWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec, getPaddingLeft() + getPaddingRight(), params.width);
+        final int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec, getPaddingTop() + getPaddingBottom(), params.height);
+        if (childWidthMeasureSpec != mRefreshViewWidthMeasureSpec || childHeightMeasureSpec != mRefreshViewHeightMeasureSpec)
+        {
+            mRefreshViewWidthMeasureSpec = childWidthMeasureSpec;
+            mRefreshViewHeightMeasureSpec = childHeightMeasureSpec;
+            mIsRefreshViewLayoutRequired = true;
+        }
+        mRefreshView.measure(childWidthMeasureSpec, childHeightMeasureSpec);
     }
 
-    private int getTopLayoutHeaderView()
+    /**
+     * 隐藏的加载view不测量，显示之前再测量
+     *
+     * @param loadingView
+     */
+    private void measureVisibleLoadingView(SDPullToRefreshLoadingView loadingView)
     {
-        // 初始值
-        int top = getTopHeaderViewReset();
-
-        if (getDirection() == Direction.FROM_HEADER)
+        if (loadingView != null && !isLoadingViewHidden(loadingView))
         {
-            if (mViewDragHelper.getViewDragState() == ViewDragHelper.STATE_IDLE)
-            {
-                switch (mState)
-                {
-                    case REFRESHING:
-                    case REFRESH_SUCCESS:
-                    case REFRESH_FAILURE:
-                        top += mHeaderView.getRefreshHeight();
-                        break;
-                }
-            } else
-            {
-                top = mHeaderView.getTop();
-            }
+            measureLoadingView(loadingView, mLoadingViewWidthMeasureSpec, mLoadingViewHeightMeasureSpec);
         }
-        return top;
     }
 
-    private int getTopLayoutFooterView()
+    private void measureLoadingView(SDPullToRefreshLoadingView loadingView, int widthMeasureSpec, int heightMeasureSpec)
     {
-        // 初始值
-        int top = getTopFooterViewReset();
-
-        if (getDirection() == Direction.FROM_FOOTER)
+        if (loadingView == null)
         {
-            if (mViewDragHelper.getViewDragState() == ViewDragHelper.STATE_IDLE)
-            {
-                switch (mState)
-                {
-                    case REFRESHING:
-                    case REFRESH_SUCCESS:
-                    case REFRESH_FAILURE:
-                        top -= mFooterView.getRefreshHeight();
-                        break;
-                }
-            } else
-            {
-                top = mFooterView.getTop();
-            }
+            return;
         }
-        return top;
+        getMeasureCache(loadingView).measure(loadingView, getLoadingViewWidthMeasureSpec(loadingView, widthMeasureSpec),
+                getLoadingViewHeightMeasureSpec(loadingView, heightMeasureSpec));
+    }
+
+    private LoadingViewMeasureCache getMeasureCache(SDPullToRefreshLoadingView loadingView)
+    {
+        return loadingView == mHeaderView ? mHeaderMeasureCache : mFooterMeasureCache;
+    }
+
+    private int getLoadingViewWidthMeasureSpec(View loadingView, int widthMeasureSpec)
+    {
+        return getChildMeasureSpec(widthMeasureSpec, getPaddingLeft() + getPaddingRight(), loadingView.getLayoutParams().width);
+    }
+
+    private static int getLoadingViewHeightMeasureSpec(View loadingView, int heightMeasureSpec)
+    {
+        return getChildMeasureSpec(heightMeasureSpec, 0, loadingView.getLayoutParams().height);
+    }
+
+    private static int getMeasuredWidth(View view)
+    {
+        return view == null ? 0 : view.getMeasuredWidth();
+    }
+
+    private static int getMeasuredHeight(View view)
+    {
+        return view == null ? 0 : view.getMeasuredHeight();
+    }
+
+    private static int getRefreshHeight(SDPullToRefreshLoadingView loadingView)
+    {
+        return loadingView == null ? 0 : loadingView.getRefreshHeight();
+    }
+
+    private boolean isDragIdle()
+    {
+        return mDragHelper.getViewDragState() == VerticalDragHelper.STATE_IDLE;
+    }
+
+    private int getTopLayoutHeaderView()
+    {
+        return PullLayout.getTopLayoutHeaderView(getTopHeaderViewReset(), getChildTop(mHeaderView), mHeaderView.getRefreshHeight(),
+                mStateMachine.getState(), getDirection().ordinal(), isDragIdle());
+    }
+
+    private int getTopLayoutFooterView()
+    {
+        return PullLayout.getTopLayoutFooterView(getTopFooterViewReset(), getChildTop(mFooterView), mFooterView.getRefreshHeight(),
+                mStateMachine.getState(), getDirection().ordinal(), isDragIdle());
     }
 
     private int getTopLayoutRefreshView()
     {
-        // 初始值
-        int top = getTopAlignTop();
+        return PullLayout.getTopLayoutRefreshView(getTopAlignTop(), getChildTop(mRefreshView),
+                getRefreshHeight(mHeaderView), getRefreshHeight(mFooterView),
+                mStateMachine.getState(), getDirection().ordinal(), isDragIdle(), mIsOverLayMode);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b)
+    {
+        countGesture(GestureCounter.COUNTER_LAYOUT);
 
-        if (mIsOverLayMode)
+        beginTrace(Tracer.SECTION_LAYOUT);
+        try
         {
-        } else
+            layoutInternal();
+        } finally
         {
-            if (mViewDragHelper.getViewDragState() == ViewDragHelper.STATE_IDLE)
-            {
-                switch (mState)
-                {
-                    case REFRESHING:
-                    case REFRESH_SUCCESS:
-                    case REFRESH_FAILURE:
-                        if (getDirection() == Direction.FROM_HEADER)
-                        {
-                            top += mHeaderView.getRefreshHeight();
-                        } else if (getDirection() == Direction.FROM_FOOTER)
-                        {
-                            top -= mFooterView.getRefreshHeight();
-                        }
-                        break;
-                }
-            } else
-            {
-                top = mRefreshView.getTop();
-            }
+            endTrace();
         }
-        return top;
     }
 
-    @Override
-    protected void onLayout(boolean changed, int l, int t, int r, int b)
+    private void layoutInternal()
     {
-        if (mLogUtils.isDebug())
+        if (mTraceLog.isEnabled() && mDebugOverlay != null)
         {
-            int state = mViewDragHelper.getViewDragState();
-            if (state == ViewDragHelper.STATE_IDLE)
-            {
-                mLogUtils.i("onLayout " + state + " totalHeight:----------" + getHeight());
-            } else
-            {
-                mLogUtils.e("onLayout " + state + " totalHeight:----------" + getHeight());
-            }
+            mDebugOverlay.onLayout(SystemClock.uptimeMillis());
         }
 
         int left = getPaddingLeft();
         int top = 0;
-        int right = 0;
         int bottom = 0;
 
         // HeaderView
-        top = getTopLayoutHeaderView();
-        right = left + mHeaderView.getMeasuredWidth();
-        bottom = top + mHeaderView.getMeasuredHeight();
-        mHeaderView.layout(left, top, right, bottom);
-        mLogUtils.i("HeaderView:" + top + "," + bottom);
+        if (mHeaderView != null && !isLoadingViewHidden(mHeaderView))
+        {
+            top = getTopLayoutHeaderView();
+            bottom = top + mHeaderView.getMeasuredHeight();
+            if (layoutChild(mHeaderView, left, top, getTopHeaderViewReset(), mHeaderMeasureCache.consumeLayoutRequired()))
+            {
+                mTraceLog.layout(TraceLog.CHILD_HEADER, top, bottom);
+            }
+        }
 
         // RefreshView
         top = getTopLayoutRefreshView();
@@ -1217,42 +2048,205 @@ public class SDPullToRefreshView extends ViewGroup implements ISDPullToRefreshVi
         {
             top = bottom;
         }
-        right = left + mRefreshView.getMeasuredWidth();
         bottom = top + mRefreshView.getMeasuredHeight();
-        mRefreshView.layout(left, top, right, bottom);
-        mLogUtils.i("RefreshView:" + top + "," + bottom);
+        final boolean refreshViewLayoutRequired = mIsRefreshViewLayoutRequired;
+        mIsRefreshViewLayoutRequired = false;
+        if (layoutChild(mRefreshView, left, top, getTopAlignTop(), refreshViewLayoutRequired))
+        {
+            mTraceLog.layout(TraceLog.CHILD_REFRESH, top, bottom);
+        }
 
         // FooterView
-        top = getTopLayoutFooterView();
-        if (!mIsOverLayMode && bottom <= getTopAlignBottom()
-                && bottom > top)
+        if (mFooterView != null && !isLoadingViewHidden(mFooterView))
         {
-            top = bottom;
+            top = getTopLayoutFooterView();
+            if (!mIsOverLayMode && bottom <= getTopAlignBottom()
+                    && bottom > top)
+            {
+                top = bottom;
+            }
+            bottom = top + mFooterView.getMeasuredHeight();
+            if (layoutChild(mFooterView, left, top, getTopFooterViewReset(), mFooterMeasureCache.consumeLayoutRequired()))
+            {
+                mTraceLog.layout(TraceLog.CHILD_FOOTER, top, bottom);
+            }
         }
-        right = left + mFooterView.getMeasuredWidth();
-        bottom = top + mFooterView.getMeasuredHeight();
-        mFooterView.layout(left, top, right, bottom);
-        mLogUtils.i("FooterView:" + top + "," + bottom);
 
         mHasOnLayout = true;
         runUpdatePositionRunnableIfNeed();
+        hideLoadingViewsIfIdle();
+    }
+
+    /**
+     * 静止状态下加载view完全在可见范围之外，设置为INVISIBLE，不参与测量，布局和绘制，里面的动画也不会再刷新
+     */
+    private void hideLoadingViewsIfIdle()
+    {
+        if (!mHasOnLayout || !isDragIdle() || mStateMachine.getState() != PullState.STATE_RESET)
+        {
+            return;
+        }
+        // 只隐藏VISIBLE的加载view，外部设置的visibility不修改
+        if (mHeaderView != null && !mIsHeaderViewHidden && mHeaderView.getVisibility() == VISIBLE
+                && getChildTop(mHeaderView) == getTopHeaderViewReset())
+        {
+            mIsHeaderViewHidden = true;
+            mHeaderView.setVisibility(INVISIBLE);
+        }
+        if (mFooterView != null && !mIsFooterViewHidden && mFooterView.getVisibility() == VISIBLE
+                && getChildTop(mFooterView) == getTopFooterViewReset())
+        {
+            mIsFooterViewHidden = true;
+            mFooterView.setVisibility(INVISIBLE);
+        }
+    }
+
+    /**
+     * 开始拖动或者刷新之前显示隐藏的加载view，先测量并布局到静止的位置再显示，不会出现位置跳动
+     *
+     * @param loadingView
+     */
+    private void showLoadingView(SDPullToRefreshLoadingView loadingView)
+    {
+        if (loadingView == null || !isLoadingViewHidden(loadingView))
+        {
+            return;
+        }
+        if (mHasOnLayout)
+        {
+            measureAndLayoutLoadingView(loadingView);
+        }
+        unhideLoadingView(loadingView);
+    }
+
+    /**
+     * 加载view是否因为静止状态被隐藏
+     *
+     * @param loadingView
+     * @return
+     */
+    private boolean isLoadingViewHidden(View loadingView)
+    {
+        if (loadingView == mHeaderView)
+        {
+            return mIsHeaderViewHidden;
+        } else if (loadingView == mFooterView)
+        {
+            return mIsFooterViewHidden;
+        } else
+        {
+            return false;
+        }
+    }
+
+    /**
+     * 恢复因为静止状态被隐藏的加载view，隐藏期间外部修改过visibility的话保留外部的设置
+     *
+     * @param loadingView
+     */
+    private void unhideLoadingView(SDPullToRefreshLoadingView loadingView)
+    {
+        if (!isLoadingViewHidden(loadingView))
+        {
+            return;
+        }
+        if (loadingView == mHeaderView)
+        {
+            mIsHeaderViewHidden = false;
+        } else
+        {
+            mIsFooterViewHidden = false;
+        }
+        if (loadingView.getVisibility() == INVISIBLE)
+        {
+            loadingView.setVisibility(VISIBLE);
+        }
+    }
+
+    /**
+     * 布局child，translationY移动的模式下child固定布局在静止的位置，通过translationY显示在top的位置<br>
+     * 只有child请求过重新布局，重新测量过，或者大小有变化的时候才调用child的layout方法；
+     * 只是位置变化的时候直接偏移，不会触发child的onLayout；位置和大小都没有变化的时候跳过
+     *
+     * @param child
+     * @param left
+     * @param top            child要显示的top值
+     * @param topReset       child静止状态下的top值
+     * @param layoutRequired child是否重新测量过
+     * @return true-child的位置或者大小有变化
+     */
+    private boolean layoutChild(View child, int left, int top, int topReset, boolean layoutRequired)
+    {
+        final int layoutTop = mIsTranslationMode ? topReset : top;
+        final int right = left + child.getMeasuredWidth();
+        final int bottom = layoutTop + child.getMeasuredHeight();
+
+        final boolean sizeChanged = child.getLeft() != left || child.getRight() != right
+                || child.getBottom() - child.getTop() != bottom - layoutTop;
+        final boolean positionChanged = child.getTop() != layoutTop;
+
+        if (layoutRequired || sizeChanged || child.isLayoutRequested())
+        {
+            child.layout(left, layoutTop, right, bottom);
+        } else if (positionChanged)
+        {
+            ViewCompat.offsetTopAndBottom(child, layoutTop - child.getTop());
+        }
+
+        boolean translationChanged = false;
+        if (mIsTranslationMode)
+        {
+            final float translationY = top - topReset;
+            if (child.getTranslationY() != translationY)
+            {
+                child.setTranslationY(translationY);
+                translationChanged = true;
+            }
+        }
+        return sizeChanged || positionChanged || translationChanged;
+    }
+
+    @Override
+    public void requestLayout()
+    {
+        super.requestLayout();
+        countGesture(GestureCounter.COUNTER_REQUEST_LAYOUT);
     }
 
     private void runUpdatePositionRunnableIfNeed()
     {
-        if (mHasOnLayout && mUpdatePositionRunnable != null)
+        if (mHasOnLayout && mIsUpdatePositionPending)
         {
+            removeCallbacks(mUpdatePositionRunnable);
             post(mUpdatePositionRunnable);
         }
     }
 
+    @Override
+    protected void onAttachedToWindow()
+    {
+        super.onAttachedToWindow();
+        mEdgeStateTracker.attach(getViewTreeObserver());
+        if (mInputLatencyTracker != null)
+        {
+            addLatencyDrawListener();
+        }
+    }
+
     @Override
     protected void onDetachedFromWindow()
     {
         super.onDetachedFromWindow();
-        removeCallbacks(mStopRefreshingRunnable);
+        mEdgeStateTracker.detach();
+        removeLatencyDrawListener();
+        mStateMachine.cancelPending();
         mHasOnLayout = false;
-        mUpdatePositionRunnable = null;
-        mViewDragHelper.abort();
+        mIsUpdatePositionPending = false;
+        removeCallbacks(mUpdatePositionRunnable);
+        mDragHelper.abort();
+        if (mGestureCounter != null)
+        {
+            mGestureCounter.cancel();
+        }
     }
 }
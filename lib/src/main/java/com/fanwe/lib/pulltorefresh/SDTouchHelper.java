@@ -15,20 +15,22 @@
  */
 package com.fanwe.lib.pulltorefresh;
 
-import android.util.Log;
+import android.os.Build;
+import android.support.v4.widget.NestedScrollView;
+import android.support.v7.widget.RecyclerView;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewParent;
+import android.widget.AbsListView;
+import android.widget.ScrollView;
+
+import com.fanwe.lib.pulltorefresh.core.TouchMath;
 
 /**
  * 触摸事件处理帮助类<br>
  */
 class SDTouchHelper
 {
-    private static final String TAG = "SDTouchHelper";
-
-    private boolean mIsDebug;
-
     /**
      * 最后一次ACTION_DOWN事件
      */
@@ -46,6 +48,14 @@ class SDTouchHelper
      * onTouchEvent方法是否需要消费事件
      */
     private boolean mIsNeedCosume = false;
+    /**
+     * 是否已经请求父view不要拦截事件
+     */
+    private boolean mIsDisallowParentIntercept = false;
+    /**
+     * 触发拖动的最小距离
+     */
+    private int mTouchSlop;
 
     private float mCurrentX;
     private float mCurrentY;
@@ -63,9 +73,14 @@ class SDTouchHelper
 
     private Direction mDirection = Direction.None;
 
-    public void setDebug(boolean debug)
+    /**
+     * 设置触发拖动的最小距离
+     *
+     * @param touchSlop
+     */
+    public void setTouchSlop(int touchSlop)
     {
-        mIsDebug = debug;
+        mTouchSlop = touchSlop;
     }
 
     /**
@@ -87,6 +102,8 @@ class SDTouchHelper
                 mDownX = mCurrentX;
                 mDownY = mCurrentY;
 
+                // ACTION_DOWN的时候父view会清除不拦截的标志
+                mIsDisallowParentIntercept = false;
                 setDirection(Direction.None);
                 break;
             case MotionEvent.ACTION_MOVE:
@@ -100,12 +117,6 @@ class SDTouchHelper
             default:
                 break;
         }
-
-        if (mIsDebug)
-        {
-            StringBuilder sb = getDebugInfo();
-            Log.i(TAG, "event " + ev.getAction() + ":" + sb.toString());
-        }
     }
 
     /**
@@ -148,6 +159,22 @@ class SDTouchHelper
         return mIsNeedCosume;
     }
 
+    /**
+     * 请求父view是否拦截事件，只有在和上一次请求不一样的时候才会调用父view的方法
+     *
+     * @param view
+     * @param disallowIntercept true-请求父view不要拦截，false-父view可以拦截
+     */
+    public void setDisallowParentIntercept(View view, boolean disallowIntercept)
+    {
+        if (mIsDisallowParentIntercept == disallowIntercept)
+        {
+            return;
+        }
+        mIsDisallowParentIntercept = disallowIntercept;
+        requestDisallowInterceptTouchEvent(view, disallowIntercept);
+    }
+
     public float getDownX()
     {
         return mDownX;
@@ -267,10 +294,6 @@ class SDTouchHelper
     private void setDirection(Direction direction)
     {
         mDirection = direction;
-        if (mIsDebug)
-        {
-            Log.i(TAG, "setDirection:" + direction);
-        }
     }
 
     /**
@@ -329,15 +352,7 @@ class SDTouchHelper
      */
     public double getDegreeXFrom(int event)
     {
-        float dx = getDeltaXFrom(event);
-        if (dx == 0)
-        {
-            return 0;
-        }
-        float dy = getDeltaYFrom(event);
-
-        float angle = Math.abs(dy) / Math.abs(dx);
-        return Math.toDegrees(Math.atan(angle));
+        return TouchMath.getDegreeX(getDeltaXFrom(event), getDeltaYFrom(event));
     }
 
     /**
@@ -348,15 +363,30 @@ class SDTouchHelper
      */
     public double getDegreeYFrom(int event)
     {
-        float dy = getDeltaYFrom(event);
-        if (dy == 0)
-        {
-            return 0;
-        }
-        float dx = getDeltaXFrom(event);
+        return TouchMath.getDegreeY(getDeltaXFrom(event), getDeltaYFrom(event));
+    }
 
-        float angle = Math.abs(dx) / Math.abs(dy);
-        return Math.toDegrees(Math.atan(angle));
+    /**
+     * 返回当前事件和指定事件之间的y轴方向移动距离是否超过触发拖动的最小距离
+     *
+     * @param event {@link #EVENT_DOWN} {@link #EVENT_LAST}
+     * @return
+     */
+    public boolean isMoveYOverSlopFrom(int event)
+    {
+        return TouchMath.isOverSlop(getDeltaYFrom(event), mTouchSlop);
+    }
+
+    /**
+     * 返回当前事件和指定事件之间的y轴方向夹角是否小于指定的角度，通过比较斜率的平方判断，不需要计算反三角函数
+     *
+     * @param event         {@link #EVENT_DOWN} {@link #EVENT_LAST}
+     * @param tanSquaredMax 指定角度正切值的平方，可以通过{@link TouchMath#getTanSquared(double)}预先计算
+     * @return
+     */
+    public boolean isDegreeYLessThanFrom(int event, float tanSquaredMax)
+    {
+        return TouchMath.isDegreeYLessThan(getDeltaXFrom(event), getDeltaYFrom(event), tanSquaredMax);
     }
 
     /**
@@ -529,6 +559,82 @@ class SDTouchHelper
         return !view.canScrollVertically(1);
     }
 
+    /**
+     * 让view在竖直方向惯性滚动，支持RecyclerView，AbsListView（api21以上），ScrollView，NestedScrollView
+     *
+     * @param view
+     * @param velocityY 速度（像素/秒），大于0内容向上滚动
+     * @return true-view支持惯性滚动
+     */
+    public static boolean flingVertically(View view, int velocityY)
+    {
+        if (view == null)
+        {
+            return false;
+        }
+
+        if (RecyclerViewCompat.isRecyclerView(view))
+        {
+            return RecyclerViewCompat.fling(view, velocityY);
+        } else if (view instanceof ScrollView)
+        {
+            ((ScrollView) view).fling(velocityY);
+            return true;
+        } else if (view instanceof NestedScrollView)
+        {
+            ((NestedScrollView) view).fling(velocityY);
+            return true;
+        } else if (view instanceof AbsListView && Build.VERSION.SDK_INT >= 21)
+        {
+            ((AbsListView) view).fling(velocityY);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * RecyclerView是provided依赖，只有项目中引入了RecyclerView的时候才会加载RecyclerView相关的类
+     */
+    static final class RecyclerViewCompat
+    {
+        private static final boolean HAS_RECYCLER_VIEW = hasRecyclerView();
+
+        private static boolean hasRecyclerView()
+        {
+            try
+            {
+                Class.forName("android.support.v7.widget.RecyclerView");
+                return true;
+            } catch (ClassNotFoundException e)
+            {
+                return false;
+            }
+        }
+
+        public static boolean isRecyclerView(View view)
+        {
+            return HAS_RECYCLER_VIEW && Impl.isRecyclerView(view);
+        }
+
+        public static boolean fling(View view, int velocityY)
+        {
+            return Impl.fling(view, velocityY);
+        }
+
+        private static final class Impl
+        {
+            static boolean isRecyclerView(View view)
+            {
+                return view instanceof RecyclerView;
+            }
+
+            static boolean fling(View view, int velocityY)
+            {
+                return ((RecyclerView) view).fling(0, velocityY);
+            }
+        }
+    }
+
     //----------static method end----------
 
     public enum Direction
@@ -551,24 +657,4 @@ class SDTouchHelper
          */
         MoveBottom,
     }
-
-    public StringBuilder getDebugInfo()
-    {
-        StringBuilder sb = new StringBuilder("\r\n")
-                .append("DownX:").append(mDownX).append("\r\n")
-                .append("DownY:").append(mDownY).append("\r\n")
-                .append("MoveX:").append(mMoveX).append("\r\n")
-                .append("MoveY:").append(mMoveY).append("\r\n").append("\r\n")
-
-                .append("DeltaX from down:").append(getDeltaXFrom(EVENT_DOWN)).append("\r\n")
-                .append("DeltaY from down:").append(getDeltaYFrom(EVENT_DOWN)).append("\r\n")
-                .append("DeltaX from last:").append(getDeltaXFrom(EVENT_LAST)).append("\r\n")
-                .append("DeltaY from last:").append(getDeltaYFrom(EVENT_LAST)).append("\r\n").append("\r\n")
-
-                .append("DegreeX from down:").append(getDegreeXFrom(EVENT_DOWN)).append("\r\n")
-                .append("DegreeY from down:").append(getDegreeYFrom(EVENT_DOWN)).append("\r\n")
-                .append("DegreeX from last:").append(getDegreeXFrom(EVENT_LAST)).append("\r\n")
-                .append("DegreeY from last:").append(getDegreeYFrom(EVENT_LAST)).append("\r\n");
-        return sb;
-    }
 }
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+
+/**
+ * 调试事件记录<br>
+ * 关闭的时候每次记录只有一次判断，不会拼接字符串也不会装箱；开启的时候把类型化的事件写入预先分配好的环形缓冲区，需要的时候再调用{@link #dump()}输出
+ */
+class TraceLog
+{
+    /**
+     * 布局事件，参数：child，top，bottom
+     */
+    public static final int EVENT_LAYOUT = 1;
+    /**
+     * 滚动动画帧，参数：top，state
+     */
+    public static final int EVENT_SETTLE_FRAME = 2;
+    /**
+     * 滚动动画开始，参数：top，endY，state
+     */
+    public static final int EVENT_SETTLE_START = 3;
+    /**
+     * 滚动动画结束，参数：state
+     */
+    public static final int EVENT_SETTLE_FINISH = 4;
+    /**
+     * 状态变化，参数：newState，oldState
+     */
+    public static final int EVENT_STATE = 5;
+    /**
+     * 方向变化，参数：direction
+     */
+    public static final int EVENT_DIRECTION = 6;
+    /**
+     * 拖动状态变化，参数：dragState
+     */
+    public static final int EVENT_DRAG_STATE = 7;
+    /**
+     * 通知刷新回调，参数：direction
+     */
+    public static final int EVENT_REFRESH_CALLBACK = 8;
+    /**
+     * 重置的时候请求重新布局
+     */
+    public static final int EVENT_REQUEST_LAYOUT = 9;
+    /**
+     * 触摸事件，参数：action，rawX，rawY
+     */
+    public static final int EVENT_TOUCH = 10;
+
+    public static final int CHILD_HEADER = 0;
+    public static final int CHILD_REFRESH = 1;
+    public static final int CHILD_FOOTER = 2;
+
+    /**
+     * 默认可以保存的事件数量
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final int RECORD_SIZE = 4;
+
+    private final String mDefaultTag;
+    private String mDebugTag;
+
+    private boolean mIsEnabled;
+
+    private final int mCapacity;
+    private long[] mTimes;
+    private int[] mRecords;
+    /**
+     * 下一个事件写入的位置
+     */
+    private int mNext;
+    /**
+     * 已经保存的事件数量
+     */
+    private int mCount;
+
+    public TraceLog(String defaultTag)
+    {
+        this(defaultTag, DEFAULT_CAPACITY);
+    }
+
+    public TraceLog(String defaultTag, int capacity)
+    {
+        if (TextUtils.isEmpty(defaultTag))
+        {
+            throw new IllegalArgumentException("defaultTag must not be null or empty");
+        }
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        mDefaultTag = defaultTag;
+        mCapacity = capacity;
+    }
+
+    public boolean isEnabled()
+    {
+        return mIsEnabled;
+    }
+
+    /**
+     * 设置是否开启，第一次开启的时候才分配缓冲区
+     *
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled)
+    {
+        if (enabled && mRecords == null)
+        {
+            mTimes = new long[mCapacity];
+            mRecords = new int[mCapacity * RECORD_SIZE];
+        }
+        mIsEnabled = enabled;
+    }
+
+    public void setDebugTag(String debugTag)
+    {
+        mDebugTag = debugTag;
+    }
+
+    private String getDebugTag()
+    {
+        if (!TextUtils.isEmpty(mDebugTag))
+        {
+            return mDebugTag;
+        }
+        return mDefaultTag;
+    }
+
+    public void layout(int child, int top, int bottom)
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_LAYOUT, child, top, bottom);
+        }
+    }
+
+    public void settleFrame(int top, int state)
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_SETTLE_FRAME, top, state, 0);
+        }
+    }
+
+    public void settleStart(int top, int endY, int state)
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_SETTLE_START, top, endY, state);
+        }
+    }
+
+    public void settleFinish(int state)
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_SETTLE_FINISH, state, 0, 0);
+        }
+    }
+
+    public void stateChanged(int newState, int oldState)
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_STATE, newState, oldState, 0);
+        }
+    }
+
+    public void directionChanged(int direction)
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_DIRECTION, direction, 0, 0);
+        }
+    }
+
+    public void dragStateChanged(int dragState)
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_DRAG_STATE, dragState, 0, 0);
+        }
+    }
+
+    public void refreshCallback(int direction)
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_REFRESH_CALLBACK, direction, 0, 0);
+        }
+    }
+
+    public void requestLayout()
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_REQUEST_LAYOUT, 0, 0, 0);
+        }
+    }
+
+    public void touch(int action, float rawX, float rawY)
+    {
+        if (mIsEnabled)
+        {
+            record(EVENT_TOUCH, action, (int) rawX, (int) rawY);
+        }
+    }
+
+    private void record(int type, int arg0, int arg1, int arg2)
+    {
+        final int index = mNext;
+        mTimes[index] = SystemClock.uptimeMillis();
+
+        final int offset = index * RECORD_SIZE;
+        mRecords[offset] = type;
+        mRecords[offset + 1] = arg0;
+        mRecords[offset + 2] = arg1;
+        mRecords[offset + 3] = arg2;
+
+        mNext = (index + 1) % mCapacity;
+        if (mCount < mCapacity)
+        {
+            mCount++;
+        }
+    }
+
+    /**
+     * 清空已经保存的事件
+     */
+    public void clear()
+    {
+        mNext = 0;
+        mCount = 0;
+    }
+
+    /**
+     * 按时间顺序把保存的事件输出到logcat，并清空缓冲区
+     */
+    public void dump()
+    {
+        if (mRecords == null || mCount == 0)
+        {
+            return;
+        }
+
+        final String tag = getDebugTag();
+        final int start = (mNext - mCount + mCapacity) % mCapacity;
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < mCount; i++)
+        {
+            final int index = (start + i) % mCapacity;
+            sb.setLength(0);
+            appendRecord(sb, index);
+            Log.i(tag, sb.toString());
+        }
+        clear();
+    }
+
+    private void appendRecord(StringBuilder sb, int index)
+    {
+        final int offset = index * RECORD_SIZE;
+        final int arg0 = mRecords[offset + 1];
+        final int arg1 = mRecords[offset + 2];
+        final int arg2 = mRecords[offset + 3];
+
+        sb.append(mTimes[index]).append(' ');
+        switch (mRecords[offset])
+        {
+            case EVENT_LAYOUT:
+                sb.append(getChildName(arg0)).append(':').append(arg1).append(',').append(arg2);
+                break;
+            case EVENT_SETTLE_FRAME:
+                sb.append("computeScroll:").append(arg0).append(' ').append(getStateName(arg1));
+                break;
+            case EVENT_SETTLE_START:
+                sb.append("smoothScrollViewByState:").append(arg0).append(',').append(arg1).append(' ').append(getStateName(arg2));
+                break;
+            case EVENT_SETTLE_FINISH:
+                sb.append("computeScroll finish:").append(getStateName(arg0));
+                break;
+            case EVENT_STATE:
+                sb.append("setState:").append(getStateName(arg0)).append(" old:").append(getStateName(arg1));
+                break;
+            case EVENT_DIRECTION:
+                sb.append("setDirection:").append(getDirectionName(arg0));
+                break;
+            case EVENT_DRAG_STATE:
+                sb.append("onViewDragStateChanged:").append(arg0);
+                break;
+            case EVENT_REFRESH_CALLBACK:
+                sb.append("notifyRefreshCallback:").append(getDirectionName(arg0));
+                break;
+            case EVENT_REQUEST_LAYOUT:
+                sb.append("requestLayout when reset");
+                break;
+            case EVENT_TOUCH:
+                sb.append("event ").append(arg0).append(':').append(arg1).append(',').append(arg2);
+                break;
+            default:
+                sb.append("unknown event:").append(mRecords[offset]);
+                break;
+        }
+    }
+
+    private static String getChildName(int child)
+    {
+        switch (child)
+        {
+            case CHILD_HEADER:
+                return "HeaderView";
+            case CHILD_REFRESH:
+                return "RefreshView";
+            case CHILD_FOOTER:
+                return "FooterView";
+            default:
+                return String.valueOf(child);
+        }
+    }
+
+    private static String getStateName(int state)
+    {
+        final ISDPullToRefreshView.State[] values = ISDPullToRefreshView.State.values();
+        if (state >= 0 && state < values.length)
+        {
+            return values[state].name();
+        }
+        return String.valueOf(state);
+    }
+
+    private static String getDirectionName(int direction)
+    {
+        final ISDPullToRefreshView.Direction[] values = ISDPullToRefreshView.Direction.values();
+        if (direction >= 0 && direction < values.length)
+        {
+            return values[direction].name();
+        }
+        return String.valueOf(direction);
+    }
+}
@@ -0,0 +1,531 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.content.Context;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.animation.AnimationUtils;
+
+import com.fanwe.lib.pulltorefresh.core.ComsumedDistance;
+import com.fanwe.lib.pulltorefresh.core.SpringScroller;
+import com.fanwe.lib.pulltorefresh.core.TouchResampler;
+
+/**
+ * 竖直方向的拖动帮助类<br>
+ * 负责触摸点跟踪，速度计算，拖动阻尼和位置限制，以及松手后的弹簧滚动，处理触摸事件的过程中不创建对象<br>
+ * 拖动的时候会读取MotionEvent中批量的历史触摸点，api16以上每一帧按照帧的时间重采样后只移动一次view
+ */
+class VerticalDragHelper
+{
+    /**
+     * 静止
+     */
+    public static final int STATE_IDLE = 0;
+    /**
+     * 拖动中
+     */
+    public static final int STATE_DRAGGING = 1;
+    /**
+     * 松手后或者代码触发的滚动中
+     */
+    public static final int STATE_SETTLING = 2;
+
+    private static final int INVALID_POINTER = -1;
+
+    private final Callback mCallback;
+    private final float mMaxVelocity;
+
+    private int mDragState = STATE_IDLE;
+    private View mCapturedView;
+
+    private int mActivePointerId = INVALID_POINTER;
+    /**
+     * 已经应用到view上的触摸点位置
+     */
+    private float mLastY;
+    /**
+     * 计算拖动阻尼后view移动的距离
+     */
+    private final ComsumedDistance mComsumedDistance = new ComsumedDistance();
+
+    private VelocityTracker mVelocityTracker;
+    private final SpringScroller mSpringScroller = new SpringScroller();
+
+    private final TouchResampler mTouchResampler = new TouchResampler();
+    private Choreographer.FrameCallback mDragFrameCallback;
+    private boolean mIsDragFramePending;
+
+    public VerticalDragHelper(Context context, Callback callback)
+    {
+        if (callback == null)
+        {
+            throw new IllegalArgumentException("callback must not be null");
+        }
+        mCallback = callback;
+        mMaxVelocity = ViewConfiguration.get(context).getScaledMaximumFlingVelocity();
+    }
+
+    /**
+     * 设置拖动的时候要消耗的拖动距离比例
+     *
+     * @param comsumeScrollPercent [0-1]
+     */
+    public void setComsumeScrollPercent(float comsumeScrollPercent)
+    {
+        mComsumedDistance.setComsumeScrollPercent(comsumeScrollPercent);
+    }
+
+    public int getViewDragState()
+    {
+        return mDragState;
+    }
+
+    public View getCapturedView()
+    {
+        return mCapturedView;
+    }
+
+    /**
+     * 返回当前的速度（像素/秒），拖动的时候是手指的速度，滚动的时候是弹簧的速度
+     *
+     * @return
+     */
+    public float getVelocity()
+    {
+        if (mDragState == STATE_DRAGGING && mVelocityTracker != null && mActivePointerId != INVALID_POINTER)
+        {
+            mVelocityTracker.computeCurrentVelocity(1000, mMaxVelocity);
+            return mVelocityTracker.getYVelocity(mActivePointerId);
+        } else if (mDragState == STATE_SETTLING)
+        {
+            return mSpringScroller.getCurrVelocity();
+        }
+        return 0;
+    }
+
+    private void setDragState(int state)
+    {
+        if (mDragState != state)
+        {
+            mDragState = state;
+            mCallback.onViewDragStateChanged(state);
+            if (state == STATE_IDLE)
+            {
+                mCapturedView = null;
+            }
+        }
+    }
+
+    /**
+     * 捕获view，开始拖动
+     *
+     * @param view
+     * @param pointerId
+     */
+    public void captureChildView(View view, int pointerId)
+    {
+        if (mDragState == STATE_SETTLING)
+        {
+            mSpringScroller.abortAnimation();
+        }
+        mCapturedView = view;
+        mActivePointerId = pointerId;
+        mComsumedDistance.reset();
+        mTouchResampler.reset();
+        setDragState(STATE_DRAGGING);
+    }
+
+    public void processTouchEvent(MotionEvent ev)
+    {
+        final int action = ev.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN)
+        {
+            cancel();
+        }
+
+        if (mVelocityTracker == null)
+        {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        mVelocityTracker.addMovement(ev);
+
+        switch (action)
+        {
+            case MotionEvent.ACTION_DOWN:
+                mActivePointerId = ev.getPointerId(0);
+                mLastY = ev.getY(0);
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                flushDrag();
+                final int index = ev.getActionIndex();
+                mActivePointerId = ev.getPointerId(index);
+                mLastY = ev.getY(index);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (mDragState == STATE_DRAGGING)
+                {
+                    final int pointerIndex = ev.findPointerIndex(mActivePointerId);
+                    if (pointerIndex < 0)
+                    {
+                        break;
+                    }
+                    addSamples(ev, pointerIndex);
+                    if (Build.VERSION.SDK_INT >= 16)
+                    {
+                        scheduleDragFrame();
+                    } else
+                    {
+                        flushDrag();
+                    }
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                flushDrag();
+                onPointerUp(ev);
+                break;
+            case MotionEvent.ACTION_UP:
+                if (mDragState == STATE_DRAGGING)
+                {
+                    // 松手前移动到最后一个触摸点的位置
+                    flushDrag();
+                    releaseViewForPointerUp();
+                }
+                cancel();
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                if (mDragState == STATE_DRAGGING)
+                {
+                    dispatchViewReleased(0);
+                }
+                cancel();
+                break;
+        }
+    }
+
+    private void onPointerUp(MotionEvent ev)
+    {
+        final int index = ev.getActionIndex();
+        if (ev.getPointerId(index) == mActivePointerId)
+        {
+            // 抬起的是当前跟踪的触摸点，改为跟踪另一个触摸点
+            final int newIndex = index == 0 ? 1 : 0;
+            mActivePointerId = ev.getPointerId(newIndex);
+            mLastY = ev.getY(newIndex);
+        }
+    }
+
+    /**
+     * 添加当前事件中指定触摸点的历史位置和当前位置
+     *
+     * @param ev
+     * @param pointerIndex
+     */
+    private void addSamples(MotionEvent ev, int pointerIndex)
+    {
+        final int historySize = ev.getHistorySize();
+        for (int i = 0; i < historySize; i++)
+        {
+            mTouchResampler.addSample(ev.getHistoricalEventTime(i) * 1000000L, ev.getHistoricalY(pointerIndex, i));
+        }
+        mTouchResampler.addSample(ev.getEventTime() * 1000000L, ev.getY(pointerIndex));
+    }
+
+    private void scheduleDragFrame()
+    {
+        if (mIsDragFramePending)
+        {
+            return;
+        }
+        mIsDragFramePending = true;
+        Choreographer.getInstance().postFrameCallback(getDragFrameCallback());
+    }
+
+    private void cancelDragFrame()
+    {
+        if (mIsDragFramePending)
+        {
+            mIsDragFramePending = false;
+            Choreographer.getInstance().removeFrameCallback(getDragFrameCallback());
+        }
+    }
+
+    private Choreographer.FrameCallback getDragFrameCallback()
+    {
+        if (mDragFrameCallback == null)
+        {
+            mDragFrameCallback = new Choreographer.FrameCallback()
+            {
+                @Override
+                public void doFrame(long frameTimeNanos)
+                {
+                    mIsDragFramePending = false;
+                    if (mDragState == STATE_DRAGGING && mTouchResampler.hasSample())
+                    {
+                        dragTo(mTouchResampler.resample(frameTimeNanos));
+                    }
+                }
+            };
+        }
+        return mDragFrameCallback;
+    }
+
+    /**
+     * 立即把view移动到最新的触摸点的位置
+     */
+    private void flushDrag()
+    {
+        cancelDragFrame();
+        if (mDragState == STATE_DRAGGING && mTouchResampler.hasSample())
+        {
+            dragTo(mTouchResampler.getLatest());
+        }
+        mTouchResampler.reset();
+    }
+
+    private void dragTo(float y)
+    {
+        dragBy(y - mLastY);
+        mLastY = y;
+    }
+
+    private void dragBy(float rawDy)
+    {
+        final int dyInt = mComsumedDistance.getAppliedDistance(rawDy);
+        if (dyInt == 0)
+        {
+            mCallback.onViewDragUnchanged(mCapturedView);
+            return;
+        }
+
+        final View view = mCapturedView;
+        final int oldTop = mCallback.getViewTop(view);
+        final int newTop = mCallback.clampViewPositionVertical(view, oldTop + dyInt);
+        final int offset = newTop - oldTop;
+        if (offset != 0)
+        {
+            mCallback.offsetView(view, offset);
+            mCallback.onViewPositionChanged(view, newTop, offset);
+        } else
+        {
+            mCallback.onViewDragUnchanged(view);
+        }
+    }
+
+    private void releaseViewForPointerUp()
+    {
+        mVelocityTracker.computeCurrentVelocity(1000, mMaxVelocity);
+        dispatchViewReleased(mVelocityTracker.getYVelocity(mActivePointerId));
+    }
+
+    private void dispatchViewReleased(float yvel)
+    {
+        mCallback.onViewReleased(mCapturedView, yvel);
+        if (mDragState == STATE_DRAGGING)
+        {
+            // 松手回调中没有开始滚动
+            setDragState(STATE_IDLE);
+        }
+    }
+
+    private void cancel()
+    {
+        cancelDragFrame();
+        mTouchResampler.reset();
+        mActivePointerId = INVALID_POINTER;
+        if (mVelocityTracker != null)
+        {
+            mVelocityTracker.clear();
+        }
+    }
+
+    /**
+     * 用弹簧滚动view到指定的位置，如果这个view正在滚动，则从当前的位置和速度改为滚动到新的位置
+     *
+     * @param view
+     * @param finalTop     目标位置
+     * @param velocity     开始速度（像素/秒）
+     * @param stiffness    弹簧刚度
+     * @param dampingRatio 阻尼比
+     * @return true-开始滚动
+     */
+    public boolean smoothSlideViewTo(View view, int finalTop, float velocity, float stiffness, float dampingRatio)
+    {
+        final long now = getAnimationTimeNanos();
+        if (mDragState == STATE_SETTLING && mCapturedView == view)
+        {
+            mSpringScroller.retarget(finalTop, stiffness, dampingRatio, now);
+            return true;
+        }
+
+        if (mDragState == STATE_SETTLING)
+        {
+            abort();
+        }
+
+        final int top = mCallback.getViewTop(view);
+        if (top == finalTop && velocity == 0)
+        {
+            return false;
+        }
+
+        mCapturedView = view;
+        mSpringScroller.start(top, finalTop, velocity, stiffness, dampingRatio, now);
+        setDragState(STATE_SETTLING);
+        return true;
+    }
+
+    /**
+     * 在{@link View#computeScroll()}中调用，计算当前帧的位置
+     *
+     * @return true-还在滚动中
+     */
+    public boolean continueSettling()
+    {
+        if (mDragState != STATE_SETTLING)
+        {
+            return false;
+        }
+
+        final int finalTop = mSpringScroller.getFinalY();
+        final int lastOffset = mCallback.getViewTop(mCapturedView) - finalTop;
+        final boolean running = mSpringScroller.computeScrollOffset(getAnimationTimeNanos());
+        final int offset = mSpringScroller.getCurrY() - finalTop;
+
+        if (offset != 0 && (lastOffset == 0 || (lastOffset > 0) != (offset > 0))
+                && mCallback.onViewSettleCrossFinal(mCapturedView, mSpringScroller.getCurrVelocity()))
+        {
+            // 越过目标位置，停在目标位置
+            mSpringScroller.abortAnimation();
+            moveCapturedViewTo(finalTop);
+            setDragState(STATE_IDLE);
+            return false;
+        }
+
+        moveCapturedViewTo(mSpringScroller.getCurrY());
+
+        if (running && !mSpringScroller.isFinished())
+        {
+            return true;
+        } else
+        {
+            setDragState(STATE_IDLE);
+            return false;
+        }
+    }
+
+    /**
+     * 停止拖动或者滚动，如果正在滚动，view直接移动到目标位置
+     */
+    public void abort()
+    {
+        cancel();
+        if (mDragState == STATE_SETTLING)
+        {
+            mSpringScroller.abortAnimation();
+            moveCapturedViewTo(mSpringScroller.getCurrY());
+        }
+        setDragState(STATE_IDLE);
+    }
+
+    private void moveCapturedViewTo(int top)
+    {
+        final View view = mCapturedView;
+        final int offset = top - mCallback.getViewTop(view);
+        if (offset != 0)
+        {
+            mCallback.offsetView(view, offset);
+            mCallback.onViewPositionChanged(view, top, offset);
+        }
+    }
+
+    private static long getAnimationTimeNanos()
+    {
+        return AnimationUtils.currentAnimationTimeMillis() * 1000000L;
+    }
+
+    public interface Callback
+    {
+        /**
+         * 返回view当前显示的top值
+         *
+         * @param view
+         * @return
+         */
+        int getViewTop(View view);
+
+        /**
+         * 移动view
+         *
+         * @param view
+         * @param dy
+         */
+        void offsetView(View view, int dy);
+
+        /**
+         * 限制view拖动后的top值
+         *
+         * @param view
+         * @param top 计算阻尼后的top值
+         * @return
+         */
+        int clampViewPositionVertical(View view, int top);
+
+        /**
+         * view位置变化回调
+         *
+         * @param view
+         * @param top
+         * @param dy
+         */
+        void onViewPositionChanged(View view, int top, int dy);
+
+        /**
+         * 拖动的时候触摸点移动了，但是view的位置没有变化（阻尼后不足1像素，或者已经到达限制的位置）
+         *
+         * @param view
+         */
+        void onViewDragUnchanged(View view);
+
+        /**
+         * 松手回调
+         *
+         * @param view
+         * @param yvel y方向速度（像素/秒）
+         */
+        void onViewReleased(View view, float yvel);
+
+        /**
+         * 滚动越过目标位置回调
+         *
+         * @param view
+         * @param velocity 当前速度（像素/秒）
+         * @return true-停在目标位置结束滚动，false-继续滚动
+         */
+        boolean onViewSettleCrossFinal(View view, float velocity);
+
+        /**
+         * 拖动状态变化回调
+         *
+         * @param state {@link #STATE_IDLE} {@link #STATE_DRAGGING} {@link #STATE_SETTLING}
+         */
+        void onViewDragStateChanged(int state);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.loadingview;
+
+import android.content.Context;
+
+/**
+ * 全局默认加载view的工厂<br>
+ * 在application模块中用@DefaultHeaderView，@DefaultFooterView注解加载view后，编译的时候会生成实现类
+ * {@link LoadingViewRegistry#GENERATED_FACTORY_CLASS_NAME}，{@link LoadingViewRegistry}会自动使用；
+ * 自己的实现通过{@link LoadingViewRegistry#setFactory(LoadingViewFactory)}设置
+ */
+public interface LoadingViewFactory
+{
+    /**
+     * 返回HeaderView的类，用来从{@link LoadingViewPool}中取出同类型的view
+     *
+     * @return 没有指定HeaderView返回null
+     */
+    Class<? extends SDPullToRefreshLoadingView> getHeaderViewClass();
+
+    /**
+     * 创建HeaderView
+     *
+     * @param context
+     * @return 没有指定HeaderView返回null
+     */
+    SDPullToRefreshLoadingView createHeaderView(Context context);
+
+    /**
+     * 返回FooterView的类，用来从{@link LoadingViewPool}中取出同类型的view
+     *
+     * @return 没有指定FooterView返回null
+     */
+    Class<? extends SDPullToRefreshLoadingView> getFooterViewClass();
+
+    /**
+     * 创建FooterView
+     *
+     * @param context
+     * @return 没有指定FooterView返回null
+     */
+    SDPullToRefreshLoadingView createFooterView(Context context);
+}
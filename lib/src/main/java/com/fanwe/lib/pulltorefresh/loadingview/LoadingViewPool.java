@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.loadingview;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 缓存已经移除的加载view，新的或者复用的{@link com.fanwe.lib.pulltorefresh.SDPullToRefreshView}可以直接取出来用，不需要重新创建和inflate<br>
+ * 只能在主线程使用；缓存的view持有创建它的{@link Context}，所以只会取出{@link Context}相同的view，
+ * 一般在Activity或者Fragment中创建一个对象，设置给同一个页面中的所有SDPullToRefreshView，页面销毁的时候调用{@link #clear()}
+ */
+public class LoadingViewPool
+{
+    private final int mMaxSize;
+    private final List<SDPullToRefreshLoadingView> mViews;
+
+    /**
+     * @param maxSize 最多缓存多少个加载view
+     */
+    public LoadingViewPool(int maxSize)
+    {
+        if (maxSize <= 0)
+        {
+            throw new IllegalArgumentException("maxSize must be > 0");
+        }
+        mMaxSize = maxSize;
+        mViews = new ArrayList<SDPullToRefreshLoadingView>(maxSize);
+    }
+
+    /**
+     * 取出一个类名和{@link Context}都相同的加载view
+     *
+     * @param className
+     * @param context
+     * @return 没有的话返回null
+     */
+    public SDPullToRefreshLoadingView acquire(String className, Context context)
+    {
+        for (int i = mViews.size() - 1; i >= 0; i--)
+        {
+            final SDPullToRefreshLoadingView view = mViews.get(i);
+            if (view.getContext() == context && view.getClass().getName().equals(className))
+            {
+                mViews.remove(i);
+                return view;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 缓存加载view，view必须已经从父布局中移除
+     *
+     * @param view
+     * @return true-缓存成功；false-view还有父布局，已经缓存过，或者缓存已满
+     */
+    public boolean release(SDPullToRefreshLoadingView view)
+    {
+        if (view == null || view.getParent() != null)
+        {
+            return false;
+        }
+        if (mViews.size() >= mMaxSize || mViews.contains(view))
+        {
+            return false;
+        }
+        mViews.add(view);
+        return true;
+    }
+
+    /**
+     * 返回当前缓存的加载view数量
+     *
+     * @return
+     */
+    public int size()
+    {
+        return mViews.size();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear()
+    {
+        mViews.clear();
+    }
+}
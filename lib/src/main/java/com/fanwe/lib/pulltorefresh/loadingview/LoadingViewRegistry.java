@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh.loadingview;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 创建全局默认的加载view<br>
+ * 优先使用{@link #setFactory(LoadingViewFactory)}设置的工厂；没有设置的时候第一次使用时加载注解处理器生成的
+ * {@link #GENERATED_FACTORY_CLASS_NAME}，只在这里通过类名查找一次，之后直接调用工厂创建加载view，
+ * 开启混淆需要保留这个类的无参构造方法（consumer-proguard-rules.pro中已经包含）；
+ * 都没有的时候根据字符串资源中配置的类名反射创建，每个类名只反射查找一次，找到的构造方法缓存起来，后面创建直接调用；
+ * 找不到或者类型不对的类名也会缓存，只打印一次错误日志
+ */
+public final class LoadingViewRegistry
+{
+    private static final String TAG = "LoadingViewRegistry";
+
+    private static final Map<String, Constructor<? extends SDPullToRefreshLoadingView>> CONSTRUCTORS = new HashMap<String, Constructor<? extends SDPullToRefreshLoadingView>>();
+
+    /**
+     * 注解处理器生成的工厂类，和compiler模块中LoadingViewFactoryProcessor的包名类名一致；
+     * 生成的类在application模块中，包名只给生成的类使用，库里面没有这个包
+     */
+    public static final String GENERATED_FACTORY_CLASS_NAME = "com.fanwe.lib.pulltorefresh.generated.GeneratedLoadingViewFactory";
+
+    private static LoadingViewFactory sFactory;
+    private static boolean sIsGeneratedFactoryLoaded;
+
+    private LoadingViewRegistry()
+    {
+    }
+
+    /**
+     * 设置全局默认加载view的工厂，代替@DefaultHeaderView，@DefaultFooterView注解生成的工厂
+     *
+     * @param factory null-使用生成的工厂
+     */
+    public static synchronized void setFactory(LoadingViewFactory factory)
+    {
+        sFactory = factory;
+        sIsGeneratedFactoryLoaded = factory != null;
+    }
+
+    /**
+     * 返回{@link #setFactory(LoadingViewFactory)}设置的工厂，没有设置的时候返回注解处理器生成的工厂
+     *
+     * @return 都没有返回null
+     */
+    public static synchronized LoadingViewFactory getFactory()
+    {
+        if (!sIsGeneratedFactoryLoaded)
+        {
+            sIsGeneratedFactoryLoaded = true;
+            sFactory = loadGeneratedFactory();
+        }
+        return sFactory;
+    }
+
+    private static LoadingViewFactory loadGeneratedFactory()
+    {
+        final Class<?> clazz;
+        try
+        {
+            clazz = Class.forName(GENERATED_FACTORY_CLASS_NAME);
+        } catch (ClassNotFoundException e)
+        {
+            // 没有使用注解
+            return null;
+        }
+
+        try
+        {
+            return clazz.asSubclass(LoadingViewFactory.class).newInstance();
+        } catch (Exception e)
+        {
+            Log.e(TAG, "create generated loading view factory error:" + GENERATED_FACTORY_CLASS_NAME, e);
+        }
+        return null;
+    }
+
+    /**
+     * 返回类名对应的构造方法(参数为{@link Context})
+     *
+     * @param className
+     * @return 类不存在，或者不是{@link SDPullToRefreshLoadingView}的子类，或者没有对应的构造方法的时候返回null
+     */
+    public static Constructor<? extends SDPullToRefreshLoadingView> getConstructor(String className)
+    {
+        if (TextUtils.isEmpty(className))
+        {
+            return null;
+        }
+
+        synchronized (CONSTRUCTORS)
+        {
+            if (CONSTRUCTORS.containsKey(className))
+            {
+                return CONSTRUCTORS.get(className);
+            }
+
+            final Constructor<? extends SDPullToRefreshLoadingView> constructor = findConstructor(className);
+            CONSTRUCTORS.put(className, constructor);
+            return constructor;
+        }
+    }
+
+    /**
+     * 创建类名对应的加载view
+     *
+     * @param className
+     * @param context
+     * @return 创建失败返回null
+     */
+    public static SDPullToRefreshLoadingView newInstance(String className, Context context)
+    {
+        if (context == null)
+        {
+            return null;
+        }
+
+        final Constructor<? extends SDPullToRefreshLoadingView> constructor = getConstructor(className);
+        if (constructor == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return constructor.newInstance(context);
+        } catch (Exception e)
+        {
+            Log.e(TAG, "create loading view error:" + className, e);
+        }
+        return null;
+    }
+
+    private static Constructor<? extends SDPullToRefreshLoadingView> findConstructor(String className)
+    {
+        try
+        {
+            final Class<?> clazz = Class.forName(className);
+            if (!SDPullToRefreshLoadingView.class.isAssignableFrom(clazz))
+            {
+                Log.e(TAG, className + " is not a subclass of " + SDPullToRefreshLoadingView.class.getName());
+                return null;
+            }
+
+            final Constructor<? extends SDPullToRefreshLoadingView> constructor = clazz.asSubclass(SDPullToRefreshLoadingView.class).getConstructor(Context.class);
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (Exception e)
+        {
+            Log.e(TAG, "find loading view constructor error:" + className, e);
+        }
+        return null;
+    }
+}
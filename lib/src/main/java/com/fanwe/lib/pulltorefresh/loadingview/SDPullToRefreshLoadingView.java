@@ -19,17 +19,19 @@ import android.content.Context;
 import android.support.annotation.AttrRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.widget.FrameLayout;
 
 import com.fanwe.lib.pulltorefresh.ISDPullToRefreshView;
 import com.fanwe.lib.pulltorefresh.SDPullToRefreshView;
 
-import java.lang.reflect.Constructor;
-
 public abstract class SDPullToRefreshLoadingView extends FrameLayout implements ISDPullToRefreshView.IPullToRefreshLoadingView
 {
+    /**
+     * 内容版本号，每次请求重新布局的时候加1，SDPullToRefreshView根据它判断是否需要重新测量
+     */
+    private int mContentVersion;
+
     public SDPullToRefreshLoadingView(@NonNull Context context)
     {
         super(context);
@@ -45,19 +47,39 @@ public abstract class SDPullToRefreshLoadingView extends FrameLayout implements
         super(context, attrs, defStyleAttr);
     }
 
+    @Override
+    public void requestLayout()
+    {
+        mContentVersion++;
+        super.requestLayout();
+    }
+
+    @Override
+    public void forceLayout()
+    {
+        mContentVersion++;
+        super.forceLayout();
+    }
+
+    /**
+     * 返回内容版本号，加载view或者它的子view请求重新布局之后会变化
+     *
+     * @return
+     */
+    public final int getContentVersion()
+    {
+        return mContentVersion;
+    }
+
     @Override
     public final ISDPullToRefreshView.LoadingViewType getLoadingViewType()
     {
-        if (getPullToRefreshView().getHeaderView() == this)
-        {
-            return ISDPullToRefreshView.LoadingViewType.HEADER;
-        } else if (getPullToRefreshView().getFooterView() == this)
-        {
-            return ISDPullToRefreshView.LoadingViewType.FOOTER;
-        } else
+        final SDPullToRefreshView view = getPullToRefreshView();
+        if (view == null)
         {
             return null;
         }
+        return view.getLoadingViewType(this);
     }
 
     @Override
@@ -84,22 +106,16 @@ public abstract class SDPullToRefreshLoadingView extends FrameLayout implements
         return getMeasuredHeight();
     }
 
+    /**
+     * 根据类名创建加载view，构造方法会被缓存
+     *
+     * @param className
+     * @param context
+     * @return
+     * @see LoadingViewRegistry#newInstance(String, Context)
+     */
     public static SDPullToRefreshLoadingView getInstanceByClassName(String className, Context context)
     {
-        if (TextUtils.isEmpty(className) || context == null)
-        {
-            return null;
-        }
-
-        try
-        {
-            Class clazz = Class.forName(className);
-            Constructor constructor = clazz.getConstructor(Context.class);
-            return (SDPullToRefreshLoadingView) constructor.newInstance(context);
-        } catch (Exception e)
-        {
-            e.printStackTrace();
-        }
-        return null;
+        return LoadingViewRegistry.newInstance(className, context);
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 统计主线程在指定区间内分配的字节数，需要HotSpot的{@link com.sun.management.ThreadMXBean}<br>
+ * 区间可以嵌套，分配的字节数只算到最外层的区间；{@link #pause()}和{@link #resume()}之间分配的对象不统计，
+ * 用来排除Robolectric模拟消息队列和Choreographer时分配的对象，设备上这些对象来自Message的对象池
+ */
+final class AllocationMeter
+{
+    static final int REGION_INTERCEPT_TOUCH_EVENT = 0;
+    static final int REGION_TOUCH_EVENT = 1;
+    static final int REGION_FRAME_CALLBACK = 2;
+    static final int REGION_COMPUTE_SCROLL = 3;
+    static final int REGION_MEASURE = 4;
+    static final int REGION_LAYOUT = 5;
+
+    static final String[] REGION_NAMES = {
+            "onInterceptTouchEvent",
+            "onTouchEvent",
+            "Choreographer.FrameCallback",
+            "computeScroll",
+            "onMeasure",
+            "onLayout",
+    };
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static boolean sEnabled;
+    private static long sThreadId;
+    /**
+     * 读一次分配字节数本身分配的字节数，统计的时候减去
+     */
+    private static long sReadOverhead;
+
+    private static final long[] sBytes = new long[REGION_NAMES.length];
+    private static final int[] sCounts = new int[REGION_NAMES.length];
+    private static int sRegion;
+    private static int sDepth;
+    private static long sStart;
+    private static int sPauseDepth;
+    private static long sPauseStart;
+
+    private AllocationMeter()
+    {
+    }
+
+    /**
+     * 开始统计当前线程分配的字节数，并清空之前统计的结果
+     */
+    static void start()
+    {
+        THREAD_MX_BEAN.setThreadAllocatedMemoryEnabled(true);
+        sThreadId = Thread.currentThread().getId();
+        sReadOverhead = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++)
+        {
+            final long start = read();
+            sReadOverhead = Math.min(sReadOverhead, read() - start);
+        }
+        for (int i = 0; i < sBytes.length; i++)
+        {
+            sBytes[i] = 0;
+            sCounts[i] = 0;
+        }
+        sDepth = 0;
+        sPauseDepth = 0;
+        sEnabled = true;
+    }
+
+    /**
+     * 停止统计
+     */
+    static void stop()
+    {
+        sEnabled = false;
+    }
+
+    private static long read()
+    {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(sThreadId);
+    }
+
+    private static boolean isMetering()
+    {
+        return sEnabled && sDepth > 0 && Thread.currentThread().getId() == sThreadId;
+    }
+
+    /**
+     * 开始一个区间
+     *
+     * @param region {@link #REGION_INTERCEPT_TOUCH_EVENT}...
+     */
+    static void begin(int region)
+    {
+        if (!sEnabled || Thread.currentThread().getId() != sThreadId)
+        {
+            return;
+        }
+        if (sDepth++ == 0)
+        {
+            sRegion = region;
+            sStart = read();
+        }
+    }
+
+    /**
+     * 结束{@link #begin(int)}开始的区间
+     */
+    static void end()
+    {
+        if (!isMetering())
+        {
+            return;
+        }
+        if (--sDepth == 0)
+        {
+            sBytes[sRegion] += read() - sStart - sReadOverhead;
+            sCounts[sRegion]++;
+        }
+    }
+
+    /**
+     * 暂停统计，可以嵌套
+     */
+    static void pause()
+    {
+        if (!isMetering())
+        {
+            return;
+        }
+        if (sPauseDepth++ == 0)
+        {
+            sPauseStart = read();
+        }
+    }
+
+    /**
+     * 恢复{@link #pause()}暂停的统计
+     */
+    static void resume()
+    {
+        if (!isMetering() || sPauseDepth == 0)
+        {
+            return;
+        }
+        if (--sPauseDepth == 0)
+        {
+            sStart += read() - sPauseStart + sReadOverhead;
+        }
+    }
+
+    /**
+     * 返回区间内分配的字节数
+     *
+     * @param region {@link #REGION_INTERCEPT_TOUCH_EVENT}...
+     * @return
+     */
+    static long getAllocatedBytes(int region)
+    {
+        return sBytes[region];
+    }
+
+    /**
+     * 返回区间执行的次数
+     *
+     * @param region {@link #REGION_INTERCEPT_TOUCH_EVENT}...
+     * @return
+     */
+    static int getCount(int region)
+    {
+        return sCounts[region];
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.MotionEvent;
+
+import com.fanwe.lib.pulltorefresh.core.EventRingLog;
+import com.fanwe.lib.pulltorefresh.core.GestureCounter;
+import com.fanwe.lib.pulltorefresh.core.RefreshMetrics;
+import com.fanwe.lib.pulltorefresh.loadingview.SDPullToRefreshLoadingView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Scheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 把手势重放到真实的SDPullToRefreshView上，检查稳定状态下拖动，松手后的滚动动画和布局不分配对象：
+ * onInterceptTouchEvent，onTouchEvent（包括VerticalDragHelper和SDTouchHelper），VerticalDragHelper的帧回调，
+ * computeScroll，onMeasure，onLayout，同时开启调试模式记录TraceLog，设置AndroidTracer，GestureCounter，RefreshMetrics，GestureRecorder和EventRingLog<br>
+ * 先执行几次手势预热（创建加载view，扩容，类加载），再统计之后的手势分配的字节数，要求为0；
+ * 加载view只记录状态，SimpleTextLoadingView等修改文字的时候由TextView分配对象，不在检查范围内
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25, shadows = {ShadowVsyncChoreographer.class, ShadowNativeMotionEvent.class, ShadowNativeVelocityTracker.class,
+        ShadowSingletonAccessibilityManager.class})
+public class AllocationTest
+{
+    private static final long GESTURE_TIMEOUT = 5000;
+    private static final int WARMUP_COUNT = 5;
+    private static final int MEASURE_COUNT = 3;
+    private static final int MEASURE_WINDOWS = 5;
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{2}")
+    public static Collection<Object[]> parameters()
+    {
+        return PullToRefreshTestHost.parameters();
+    }
+
+    private final int mContent;
+    private final PullToRefreshTestHost.Scenario mScenario;
+
+    private PullToRefreshTestHost mHost;
+    private final GestureRecorder mGestureRecorder = new GestureRecorder();
+    private File mEventRingLogFile;
+    private EventRingLog mEventRingLog;
+
+    public AllocationTest(int content, PullToRefreshTestHost.Scenario scenario, String name)
+    {
+        mContent = content;
+        mScenario = scenario;
+    }
+
+    @Before
+    public void setUp() throws IOException
+    {
+        // View.post和removeCallbacks由Robolectric的Scheduler模拟，在创建view之前替换
+        final Scheduler scheduler = new UnmeteredScheduler();
+        RuntimeEnvironment.setMasterScheduler(scheduler);
+        Shadows.shadowOf(Looper.getMainLooper().getQueue()).setScheduler(scheduler);
+
+        final Context context = RuntimeEnvironment.application;
+        mHost = new PullToRefreshTestHost(mContent, new MeteredPullToRefreshView(context));
+
+        final SDPullToRefreshView view = mHost.getView();
+        view.setHeaderView(new StateLoadingView(context));
+        view.setFooterView(new StateLoadingView(context));
+        view.setDebug(true);
+        view.setTracer(new AndroidTracer());
+        view.setGestureCounter(new GestureCounter());
+        view.setRefreshMetrics(new RefreshMetrics());
+        mGestureRecorder.start(new DiscardOutputStream());
+        view.setGestureRecorder(mGestureRecorder);
+        mEventRingLogFile = File.createTempFile("pull", ".log");
+        mEventRingLog = EventRingLog.open(mEventRingLogFile, 256);
+        view.setEventRingLog(mEventRingLog);
+        mHost.runFrames(2);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        AllocationMeter.stop();
+        mGestureRecorder.stop();
+        if (mEventRingLog != null)
+        {
+            mEventRingLog.close();
+        }
+        if (mEventRingLogFile != null)
+        {
+            mEventRingLogFile.delete();
+        }
+    }
+
+    /**
+     * 预热之后统计手势分配的字节数，每次手势前请求重新布局，让onMeasure和onLayout在统计范围内执行<br>
+     * 统计{@link #MEASURE_WINDOWS}个窗口，每个区间取所有窗口中最小的字节数，有一个区间不为0就失败：
+     * JIT编译和Robolectric的invokedynamic调用点重新链接时，虚拟机会在当前线程偶尔分配一次对象，时机不固定，
+     * 只会出现在个别窗口；稳定状态下每次手势都分配的对象在每个窗口都会出现，最小值不为0
+     *
+     * @param trace
+     * @throws IOException
+     */
+    private void checkGesture(byte[] trace) throws IOException
+    {
+        for (int i = 0; i < WARMUP_COUNT; i++)
+        {
+            runGesture(trace);
+        }
+
+        final int regionCount = AllocationMeter.REGION_NAMES.length;
+        final long[] minBytes = new long[regionCount];
+        final int[] counts = new int[regionCount];
+        for (int window = 0; window < MEASURE_WINDOWS; window++)
+        {
+            AllocationMeter.start();
+            for (int i = 0; i < MEASURE_COUNT; i++)
+            {
+                runGesture(trace);
+            }
+            AllocationMeter.stop();
+
+            for (int i = 0; i < regionCount; i++)
+            {
+                assertTrue(mHost.getContentName() + " " + AllocationMeter.REGION_NAMES[i] + " was not called", AllocationMeter.getCount(i) > 0);
+                final long bytes = AllocationMeter.getAllocatedBytes(i);
+                if (window == 0 || bytes < minBytes[i])
+                {
+                    minBytes[i] = bytes;
+                    counts[i] = AllocationMeter.getCount(i);
+                }
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < regionCount; i++)
+        {
+            if (minBytes[i] != 0)
+            {
+                sb.append(AllocationMeter.REGION_NAMES[i]).append(":").append(minBytes[i]).append(" bytes in ")
+                        .append(counts[i]).append(" calls\n");
+            }
+        }
+        if (sb.length() > 0)
+        {
+            fail(mHost.getContentName() + " allocated in every window, minimum of " + MEASURE_WINDOWS + " windows:\n" + sb);
+        }
+    }
+
+    private void runGesture(byte[] trace) throws IOException
+    {
+        mHost.getView().requestLayout();
+        assertTrue(mHost.getContentName() + " gesture did not finish", mHost.runGesture(trace, GESTURE_TIMEOUT));
+    }
+
+    @Test
+    public void gesture() throws IOException
+    {
+        mHost.prepare(mScenario);
+        checkGesture(mScenario.createTrace());
+    }
+
+    /**
+     * 不统计自身分配的对象的Scheduler<br>
+     * Robolectric的View.post，postDelayed和removeCallbacks直接调用Scheduler，Scheduler每次都会分配对象（例如remove的时候的迭代器），
+     * 设备上对应的是Handler和Message的对象池，不分配对象
+     */
+    private static final class UnmeteredScheduler extends Scheduler
+    {
+        @Override
+        public synchronized void post(Runnable runnable)
+        {
+            AllocationMeter.pause();
+            try
+            {
+                super.post(runnable);
+            } finally
+            {
+                AllocationMeter.resume();
+            }
+        }
+
+        @Override
+        public synchronized void postDelayed(Runnable runnable, long delayMillis)
+        {
+            AllocationMeter.pause();
+            try
+            {
+                super.postDelayed(runnable, delayMillis);
+            } finally
+            {
+                AllocationMeter.resume();
+            }
+        }
+
+        @Override
+        public synchronized void postDelayed(Runnable runnable, long delay, TimeUnit unit)
+        {
+            AllocationMeter.pause();
+            try
+            {
+                super.postDelayed(runnable, delay, unit);
+            } finally
+            {
+                AllocationMeter.resume();
+            }
+        }
+
+        @Override
+        public synchronized void postAtFrontOfQueue(Runnable runnable)
+        {
+            AllocationMeter.pause();
+            try
+            {
+                super.postAtFrontOfQueue(runnable);
+            } finally
+            {
+                AllocationMeter.resume();
+            }
+        }
+
+        @Override
+        public synchronized void remove(Runnable runnable)
+        {
+            AllocationMeter.pause();
+            try
+            {
+                super.remove(runnable);
+            } finally
+            {
+                AllocationMeter.resume();
+            }
+        }
+    }
+
+    /**
+     * 在{@link AllocationMeter}的区间中执行触摸事件，滚动和布局
+     */
+    private static final class MeteredPullToRefreshView extends SDPullToRefreshView
+    {
+        MeteredPullToRefreshView(Context context)
+        {
+            super(context);
+        }
+
+        @Override
+        public boolean onInterceptTouchEvent(MotionEvent ev)
+        {
+            AllocationMeter.begin(AllocationMeter.REGION_INTERCEPT_TOUCH_EVENT);
+            try
+            {
+                return super.onInterceptTouchEvent(ev);
+            } finally
+            {
+                AllocationMeter.end();
+            }
+        }
+
+        @Override
+        public boolean onTouchEvent(MotionEvent event)
+        {
+            AllocationMeter.begin(AllocationMeter.REGION_TOUCH_EVENT);
+            try
+            {
+                return super.onTouchEvent(event);
+            } finally
+            {
+                AllocationMeter.end();
+            }
+        }
+
+        @Override
+        public void computeScroll()
+        {
+            AllocationMeter.begin(AllocationMeter.REGION_COMPUTE_SCROLL);
+            try
+            {
+                super.computeScroll();
+            } finally
+            {
+                AllocationMeter.end();
+            }
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
+        {
+            AllocationMeter.begin(AllocationMeter.REGION_MEASURE);
+            try
+            {
+                super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            } finally
+            {
+                AllocationMeter.end();
+            }
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom)
+        {
+            AllocationMeter.begin(AllocationMeter.REGION_LAYOUT);
+            try
+            {
+                super.onLayout(changed, left, top, right, bottom);
+            } finally
+            {
+                AllocationMeter.end();
+            }
+        }
+    }
+
+    /**
+     * 丢弃写入的数据，write方法不分配对象
+     */
+    private static final class DiscardOutputStream extends OutputStream
+    {
+        @Override
+        public void write(int b)
+        {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+        }
+    }
+
+    /**
+     * 只记录状态的加载view，高度固定
+     */
+    private static final class StateLoadingView extends SDPullToRefreshLoadingView
+    {
+        private static final int HEIGHT = 150;
+
+        private ISDPullToRefreshView.State mState;
+
+        StateLoadingView(Context context)
+        {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
+        {
+            setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), HEIGHT);
+        }
+
+        @Override
+        public void onStateChanged(ISDPullToRefreshView.State newState, ISDPullToRefreshView.State oldState, SDPullToRefreshView view)
+        {
+            mState = newState;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import com.fanwe.lib.pulltorefresh.core.ChromeTracer;
+import com.fanwe.lib.pulltorefresh.core.GestureBudget;
+import com.fanwe.lib.pulltorefresh.core.GestureCounter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 把手势重放到真实的SDPullToRefreshView上，检查每次手势的measure，layout，requestLayout，状态变化和回调次数是否超过预算<br>
+ * 预算文件通过系统属性gestureBudget指定，默认是budget/gesture-budget.properties；
+ * 系统属性gestureTrace指定目录的时候，每个测试的耗时区间写成Chrome trace json保存到这个目录
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25, shadows = {ShadowVsyncChoreographer.class, ShadowNativeMotionEvent.class, ShadowNativeVelocityTracker.class})
+public class GestureBudgetTest
+{
+    private static final long GESTURE_TIMEOUT = 5000;
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{2}")
+    public static Collection<Object[]> parameters()
+    {
+        return PullToRefreshTestHost.parameters();
+    }
+
+    private final int mContent;
+    private final PullToRefreshTestHost.Scenario mScenario;
+
+    private PullToRefreshTestHost mHost;
+    private GestureBudget mBudget;
+    private final GestureCounter mCounter = new GestureCounter();
+    private final StringBuilder mErrors = new StringBuilder();
+    private int mRefreshCount;
+    private ChromeTracer mTracer;
+
+    public GestureBudgetTest(int content, PullToRefreshTestHost.Scenario scenario, String name)
+    {
+        mContent = content;
+        mScenario = scenario;
+    }
+
+    @Before
+    public void setUp() throws IOException
+    {
+        final InputStream inputStream = new FileInputStream(System.getProperty("gestureBudget", "../budget/gesture-budget.properties"));
+        try
+        {
+            mBudget = GestureBudget.load(inputStream);
+        } finally
+        {
+            inputStream.close();
+        }
+
+        mHost = new PullToRefreshTestHost(mContent);
+        mCounter.setOnGestureFinishListener(new GestureCounter.OnGestureFinishListener()
+        {
+            @Override
+            public void onGestureFinish(GestureCounter counter)
+            {
+                mRefreshCount += counter.get(GestureCounter.COUNTER_REFRESH_CALLBACK);
+                final StringBuilder sb = new StringBuilder();
+                if (!mBudget.check(counter, sb))
+                {
+                    mErrors.append(mHost.getContentName()).append(" gesture ").append(counter.getGestureCount())
+                            .append(" exceeded budget:\n").append(sb);
+                }
+            }
+        });
+        mHost.getView().setGestureCounter(mCounter);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        if (mTracer != null)
+        {
+            mTracer.close();
+            if (mTracer.getError() != null)
+            {
+                throw mTracer.getError();
+            }
+        }
+    }
+
+    /**
+     * 系统属性gestureTrace不为空的时候记录耗时区间
+     *
+     * @throws IOException
+     */
+    private void startTrace() throws IOException
+    {
+        final String dir = System.getProperty("gestureTrace");
+        if (dir == null || dir.isEmpty())
+        {
+            return;
+        }
+        final File file = new File(dir, mScenario.getName() + "-" + mHost.getContentName() + ".json");
+        file.getParentFile().mkdirs();
+        mTracer = new ChromeTracer(new FileOutputStream(file));
+        mHost.getView().setTracer(mTracer);
+    }
+
+    /**
+     * 重复执行手势
+     *
+     * @param trace
+     * @param count
+     * @param refresh 每次手势是否应该触发刷新
+     * @throws IOException
+     */
+    private void runGestures(byte[] trace, int count, boolean refresh) throws IOException
+    {
+        final int start = mCounter.getGestureCount();
+        final int startRefreshCount = mRefreshCount;
+        for (int i = 0; i < count; i++)
+        {
+            assertTrue(mHost.getContentName() + " gesture " + i + " did not finish", mHost.runGesture(trace, GESTURE_TIMEOUT));
+        }
+        assertEquals(count, mCounter.getGestureCount() - start);
+        assertEquals(refresh ? count : 0, mRefreshCount - startRefreshCount);
+        if (mErrors.length() > 0)
+        {
+            fail(mErrors.toString());
+        }
+    }
+
+    /**
+     * 执行两次手势，第一次手势包括创建加载view
+     *
+     * @throws IOException
+     */
+    @Test
+    public void gesture() throws IOException
+    {
+        mHost.prepare(mScenario);
+        startTrace();
+        runGestures(mScenario.createTrace(), 2, mScenario.isRefresh());
+    }
+}
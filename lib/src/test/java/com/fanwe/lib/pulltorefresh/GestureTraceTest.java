@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.fanwe.lib.pulltorefresh.core.GestureTraceReader;
+import com.fanwe.lib.pulltorefresh.core.GestureTraceWriter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 用{@link GestureRecorder}记录两个手指的手势，再用{@link GestureReplayer}重放，检查重放的事件和记录的一样，
+ * 包括ACTION_POINTER_DOWN/UP的触摸点序号
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25, shadows = {ShadowNativeMotionEvent.class})
+public class GestureTraceTest
+{
+    private static final int ACTION_POINTER_1_DOWN = MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+    private static final int ACTION_POINTER_1_UP = MotionEvent.ACTION_POINTER_UP | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+
+    @Test
+    public void replaySecondPointer() throws IOException
+    {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final GestureRecorder recorder = new GestureRecorder();
+        recorder.start(outputStream);
+        recordTouch(recorder, 0, MotionEvent.ACTION_DOWN, 1, 100);
+        recordTouch(recorder, 16, ACTION_POINTER_1_DOWN, 2, 100);
+        recordTouch(recorder, 32, MotionEvent.ACTION_MOVE, 2, 150);
+        recordTouch(recorder, 48, ACTION_POINTER_1_UP, 2, 150);
+        recordTouch(recorder, 64, MotionEvent.ACTION_UP, 1, 150);
+        recorder.stop();
+
+        final RecordingView view = new RecordingView(RuntimeEnvironment.application);
+        final GestureReplayer replayer = new GestureReplayer(new ByteArrayInputStream(outputStream.toByteArray()));
+        while (replayer.step(view))
+        {
+        }
+        replayer.close();
+
+        assertEquals(5, view.mEvents.size());
+        assertEvent(view.mEvents.get(0), MotionEvent.ACTION_DOWN, 1, 100);
+        assertEvent(view.mEvents.get(1), ACTION_POINTER_1_DOWN, 2, 100);
+        assertEvent(view.mEvents.get(2), MotionEvent.ACTION_MOVE, 2, 150);
+        assertEvent(view.mEvents.get(3), ACTION_POINTER_1_UP, 2, 150);
+        assertEvent(view.mEvents.get(4), MotionEvent.ACTION_UP, 1, 150);
+    }
+
+    @Test
+    public void rejectOldVersion() throws IOException
+    {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeInt(GestureTraceWriter.MAGIC);
+        dataOutputStream.writeByte(1);
+        dataOutputStream.close();
+        try
+        {
+            new GestureTraceReader(new ByteArrayInputStream(outputStream.toByteArray()));
+            fail("version 1 stores only the low byte of the action and must be rejected");
+        } catch (IOException e)
+        {
+            // 版本1的ACTION_POINTER_DOWN/UP没有触摸点序号
+        }
+    }
+
+    /**
+     * 记录一个触摸事件，第i个手指的id为i，x为100*(i+1)
+     */
+    private static void recordTouch(GestureRecorder recorder, long time, int action, int pointerCount, float y)
+    {
+        final MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[pointerCount];
+        final MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointerCount];
+        for (int i = 0; i < pointerCount; i++)
+        {
+            properties[i] = new MotionEvent.PointerProperties();
+            properties[i].id = i;
+            coords[i] = new MotionEvent.PointerCoords();
+            coords[i].x = 100 * (i + 1);
+            coords[i].y = y;
+        }
+        final MotionEvent event = MotionEvent.obtain(0, time, action, pointerCount, properties, coords, 0, 0, 1, 1, 0, 0, 0, 0);
+        recorder.recordTouch(event);
+        event.recycle();
+    }
+
+    private static void assertEvent(int[] event, int action, int pointerCount, float y)
+    {
+        assertEquals("action", action, event[0]);
+        assertEquals("pointerCount", pointerCount, event[1]);
+        for (int i = 0; i < pointerCount; i++)
+        {
+            assertEquals("pointerId", i, event[2 + i * 3]);
+            assertEquals("x", 100 * (i + 1), event[3 + i * 3]);
+            assertEquals("y", (int) y, event[4 + i * 3]);
+        }
+    }
+
+    /**
+     * 记录收到的事件：action，触摸点数量，每个触摸点的id，x，y
+     */
+    private static final class RecordingView extends View
+    {
+        private final List<int[]> mEvents = new ArrayList<int[]>();
+
+        RecordingView(Context context)
+        {
+            super(context);
+        }
+
+        @Override
+        public boolean dispatchTouchEvent(MotionEvent event)
+        {
+            final int pointerCount = event.getPointerCount();
+            final int[] values = new int[2 + pointerCount * 3];
+            values[0] = event.getAction();
+            values[1] = pointerCount;
+            for (int i = 0; i < pointerCount; i++)
+            {
+                values[2 + i * 3] = event.getPointerId(i);
+                values[3 + i * 3] = (int) event.getX(i);
+                values[4 + i * 3] = (int) event.getY(i);
+            }
+            mEvents.add(values);
+            return true;
+        }
+    }
+}
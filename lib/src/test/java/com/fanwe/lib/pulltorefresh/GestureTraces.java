@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.view.MotionEvent;
+
+import com.fanwe.lib.pulltorefresh.core.GestureTraceWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * 生成和{@link GestureRecorder}格式一样的手势记录，用{@link GestureReplayer}重放<br>
+ * 一个手指按下，匀速移动，停顿后抬起；触摸屏每{@link #SAMPLE_INTERVAL}毫秒采样一次，和设备上一样每一帧分发一个MOVE事件，
+ * 两帧之间的采样作为历史触摸点
+ */
+final class GestureTraces
+{
+    /**
+     * 触摸屏采样间隔（毫秒）
+     */
+    static final long SAMPLE_INTERVAL = 8;
+
+    private GestureTraces()
+    {
+    }
+
+    /**
+     * 竖直拖动
+     *
+     * @param x            触摸点x坐标
+     * @param startY       按下的y坐标
+     * @param endY         抬起的y坐标
+     * @param moveDuration 从按下到移动到endY的时长（毫秒）
+     * @param holdDuration 移动到endY后停顿多久再抬起（毫秒），0-移动中抬起
+     * @return
+     * @throws IOException
+     */
+    static byte[] drag(float x, float startY, float endY, long moveDuration, long holdDuration) throws IOException
+    {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final GestureTraceWriter writer = new GestureTraceWriter(outputStream);
+
+        writeEvent(writer, 0, MotionEvent.ACTION_DOWN, 0, x, startY, endY, moveDuration);
+        long time = 0;
+        while (time < moveDuration)
+        {
+            time = Math.min(time + ShadowVsyncChoreographer.FRAME_INTERVAL, moveDuration);
+            writeEvent(writer, time, MotionEvent.ACTION_MOVE, time - ShadowVsyncChoreographer.FRAME_INTERVAL, x, startY, endY, moveDuration);
+        }
+        writeEvent(writer, time + holdDuration, MotionEvent.ACTION_UP, time + holdDuration, x, startY, endY, moveDuration);
+
+        writer.close();
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 写入一个触摸事件，lastEventTime之后的采样作为历史触摸点
+     */
+    private static void writeEvent(GestureTraceWriter writer, long eventTime, int action, long lastEventTime,
+                                   float x, float startY, float endY, long moveDuration) throws IOException
+    {
+        int historySize = 0;
+        for (long t = lastEventTime + SAMPLE_INTERVAL; t < eventTime; t += SAMPLE_INTERVAL)
+        {
+            historySize++;
+        }
+
+        writer.writeTouchHeader(eventTime, 0, action, 1, historySize, 0, 0);
+        writer.writePointerId(0);
+        for (long t = lastEventTime + SAMPLE_INTERVAL; t < eventTime; t += SAMPLE_INTERVAL)
+        {
+            writer.writeSampleTime(t);
+            writer.writeSamplePosition(x, getY(t, startY, endY, moveDuration));
+        }
+        writer.writeSampleTime(eventTime);
+        writer.writeSamplePosition(x, getY(eventTime, startY, endY, moveDuration));
+    }
+
+    private static float getY(long time, float startY, float endY, long moveDuration)
+    {
+        if (time >= moveDuration)
+        {
+            return endY;
+        }
+        return startY + (endY - startY) * time / moveDuration;
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试用的界面，Activity中只有一个SDPullToRefreshView，RefreshView可以是ListView，RecyclerView或者ScrollView<br>
+ * 主线程的消息队列是暂停的，通过{@link #runFrames(int)}按帧推进时间：每一帧先执行到期的消息（重放的触摸事件，Choreographer回调，布局），
+ * 再调用computeScroll，相当于设备上绘制的时候调用computeScroll；需要配合{@link ShadowVsyncChoreographer}使用
+ */
+final class PullToRefreshTestHost
+{
+    static final int CONTENT_LIST_VIEW = 0;
+    static final int CONTENT_RECYCLER_VIEW = 1;
+    static final int CONTENT_SCROLL_VIEW = 2;
+
+    static final String[] CONTENT_NAMES = {"ListView", "RecyclerView", "ScrollView"};
+
+    /**
+     * 重放到每种RefreshView上的手势
+     */
+    static final Scenario[] SCENARIOS = {
+            new Scenario("pullFromHeaderToRefresh", 50, 350, 300, 100, true),
+            new Scenario("pullFromHeaderToRefreshWithResult", 50, 350, 300, 100, true).setShowRefreshResult(),
+            new Scenario("pullFromHeaderAndCancel", 50, 110, 150, 100, false),
+            new Scenario("pullFromFooterToRefresh", 350, 50, 300, 100, true).setFromFooter(),
+            // 拖动距离不够，松手速度足够的时候也会刷新
+            new Scenario("flingFromHeaderToRefresh", 50, 120, 60, 0, true),
+    };
+
+    private static final int ITEM_COUNT = 50;
+    private static final int ITEM_HEIGHT = 48;
+    /**
+     * 刷新回调之后多久停止刷新（毫秒）
+     */
+    private static final long REFRESH_DURATION = 300;
+
+    private final int mContent;
+    private final SDPullToRefreshView mView;
+    private final View mRefreshView;
+
+    /**
+     * 停止刷新的时候是否显示刷新结果
+     */
+    private boolean mShowRefreshResult;
+    /**
+     * 刷新回调的时间，小于0-没有等待停止的刷新；在{@link #runFrames(int)}中停止刷新，不在刷新回调中post消息
+     */
+    private long mRefreshTime = -1;
+
+    PullToRefreshTestHost(int content)
+    {
+        this(content, null);
+    }
+
+    /**
+     * @param content {@link #CONTENT_LIST_VIEW}...
+     * @param view    null-创建默认的SDPullToRefreshView
+     */
+    PullToRefreshTestHost(int content, SDPullToRefreshView view)
+    {
+        final ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).create();
+        final Activity activity = controller.get();
+
+        mContent = content;
+        mView = view != null ? view : new SDPullToRefreshView(activity);
+        mRefreshView = createRefreshView(activity, content);
+        mView.addView(mRefreshView, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        // 和在布局文件中添加RefreshView一样
+        mView.onFinishInflate();
+        mView.setOnRefreshCallback(new ISDPullToRefreshView.OnRefreshCallback()
+        {
+            @Override
+            public void onRefreshingFromHeader(SDPullToRefreshView view)
+            {
+                mRefreshTime = SystemClock.uptimeMillis();
+            }
+
+            @Override
+            public void onRefreshingFromFooter(SDPullToRefreshView view)
+            {
+                mRefreshTime = SystemClock.uptimeMillis();
+            }
+        });
+
+        activity.setContentView(mView);
+        controller.start().resume().visible();
+        ShadowLooper.pauseMainLooper();
+        runFrames(2);
+    }
+
+    /**
+     * 参数化测试的参数：每种RefreshView和每个手势组合一次，{content, scenario, name}
+     *
+     * @return
+     */
+    static Collection<Object[]> parameters()
+    {
+        final List<Object[]> list = new ArrayList<Object[]>();
+        for (int i = 0; i < CONTENT_NAMES.length; i++)
+        {
+            for (Scenario scenario : SCENARIOS)
+            {
+                list.add(new Object[]{i, scenario, CONTENT_NAMES[i] + "-" + scenario.getName()});
+            }
+        }
+        return list;
+    }
+
+    private static View createRefreshView(Context context, int content)
+    {
+        switch (content)
+        {
+            case CONTENT_LIST_VIEW:
+                final String[] items = new String[ITEM_COUNT];
+                for (int i = 0; i < items.length; i++)
+                {
+                    items[i] = String.valueOf(i);
+                }
+                final ListView listView = new ListView(context);
+                listView.setAdapter(new ArrayAdapter<String>(context, android.R.layout.simple_list_item_1, items));
+                return listView;
+            case CONTENT_RECYCLER_VIEW:
+                final RecyclerView recyclerView = new RecyclerView(context);
+                recyclerView.setLayoutManager(new LinearLayoutManager(context));
+                recyclerView.setAdapter(new ItemAdapter());
+                return recyclerView;
+            case CONTENT_SCROLL_VIEW:
+                final LinearLayout linearLayout = new LinearLayout(context);
+                linearLayout.setOrientation(LinearLayout.VERTICAL);
+                for (int i = 0; i < ITEM_COUNT; i++)
+                {
+                    linearLayout.addView(createItemView(context, i));
+                }
+                final ScrollView scrollView = new ScrollView(context);
+                scrollView.addView(linearLayout);
+                return scrollView;
+            default:
+                throw new IllegalArgumentException("unknown content:" + content);
+        }
+    }
+
+    private static TextView createItemView(Context context, int position)
+    {
+        final TextView textView = new TextView(context);
+        textView.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+        textView.setText(String.valueOf(position));
+        return textView;
+    }
+
+    private static final class ItemAdapter extends RecyclerView.Adapter<ItemViewHolder>
+    {
+        @Override
+        public ItemViewHolder onCreateViewHolder(ViewGroup parent, int viewType)
+        {
+            return new ItemViewHolder(createItemView(parent.getContext(), 0));
+        }
+
+        @Override
+        public void onBindViewHolder(ItemViewHolder holder, int position)
+        {
+            ((TextView) holder.itemView).setText(String.valueOf(position));
+        }
+
+        @Override
+        public int getItemCount()
+        {
+            return ITEM_COUNT;
+        }
+    }
+
+    private static final class ItemViewHolder extends RecyclerView.ViewHolder
+    {
+        ItemViewHolder(View itemView)
+        {
+            super(itemView);
+        }
+    }
+
+    SDPullToRefreshView getView()
+    {
+        return mView;
+    }
+
+    String getContentName()
+    {
+        return CONTENT_NAMES[mContent];
+    }
+
+    /**
+     * 设置停止刷新的时候是否显示刷新结果
+     *
+     * @param showRefreshResult true-调用{@link SDPullToRefreshView#stopRefreshingWithResult(boolean)}，false-调用{@link SDPullToRefreshView#stopRefreshing()}
+     */
+    void setShowRefreshResult(boolean showRefreshResult)
+    {
+        mShowRefreshResult = showRefreshResult;
+    }
+
+    /**
+     * RefreshView滚动到底部，之后可以从FooterView方向拖动
+     */
+    void scrollRefreshViewToBottom()
+    {
+        switch (mContent)
+        {
+            case CONTENT_LIST_VIEW:
+                ((ListView) mRefreshView).setSelection(ITEM_COUNT - 1);
+                break;
+            case CONTENT_RECYCLER_VIEW:
+                ((RecyclerView) mRefreshView).scrollToPosition(ITEM_COUNT - 1);
+                break;
+            case CONTENT_SCROLL_VIEW:
+                final int scrollY = ITEM_COUNT * ITEM_HEIGHT - mRefreshView.getHeight();
+                mRefreshView.scrollTo(0, scrollY);
+                // Robolectric的View.scrollTo只记录在shadow中，canScrollVertically读取的是View的mScrollY
+                ReflectionHelpers.setField(mRefreshView, "mScrollY", scrollY);
+                break;
+        }
+        runFrames(2);
+    }
+
+    /**
+     * 按照手势的要求准备界面：从FooterView方向拖动的时候RefreshView先滚动到底部，设置停止刷新的时候是否显示刷新结果
+     *
+     * @param scenario
+     */
+    void prepare(Scenario scenario)
+    {
+        setShowRefreshResult(scenario.isShowRefreshResult());
+        if (scenario.isFromFooter())
+        {
+            scrollRefreshViewToBottom();
+        }
+    }
+
+    /**
+     * 按照记录的时间间隔重放手势，然后推进时间直到回到{@link ISDPullToRefreshView.State#RESET}并且没有拖动或者滚动
+     *
+     * @param trace   {@link GestureTraces}生成的手势记录
+     * @param timeout 最多推进的时间（毫秒）
+     * @return false-超时
+     * @throws IOException
+     */
+    boolean runGesture(byte[] trace, long timeout) throws IOException
+    {
+        final GestureReplayer replayer = new GestureReplayer(new ByteArrayInputStream(trace));
+        replayer.play(mView);
+        try
+        {
+            for (long time = 0; time < timeout; time += ShadowVsyncChoreographer.FRAME_INTERVAL)
+            {
+                runFrames(1);
+                if (!replayer.isPlaying() && mView.getState() == ISDPullToRefreshView.State.RESET
+                        && mView.getScrollDistance() == 0)
+                {
+                    return true;
+                }
+            }
+            return false;
+        } finally
+        {
+            replayer.close();
+        }
+    }
+
+    /**
+     * 推进指定的帧数
+     *
+     * @param count
+     */
+    void runFrames(int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            ShadowLooper.idleMainLooper(ShadowVsyncChoreographer.FRAME_INTERVAL, TimeUnit.MILLISECONDS);
+            mView.computeScroll();
+            stopRefreshingIfNeed();
+        }
+    }
+
+    private void stopRefreshingIfNeed()
+    {
+        if (mRefreshTime < 0 || SystemClock.uptimeMillis() < mRefreshTime + REFRESH_DURATION)
+        {
+            return;
+        }
+        mRefreshTime = -1;
+        if (mShowRefreshResult)
+        {
+            mView.stopRefreshingWithResult(true);
+        } else
+        {
+            mView.stopRefreshing();
+        }
+    }
+
+    /**
+     * 测试的手势：在x=100的位置竖直拖动，参数见{@link GestureTraces#drag(float, float, float, long, long)}
+     */
+    static final class Scenario
+    {
+        private static final float X = 100;
+
+        private final String mName;
+        private final float mStartY;
+        private final float mEndY;
+        private final long mMoveDuration;
+        private final long mHoldDuration;
+        private final boolean mRefresh;
+        private boolean mFromFooter;
+        private boolean mShowRefreshResult;
+
+        /**
+         * @param name
+         * @param startY
+         * @param endY
+         * @param moveDuration
+         * @param holdDuration
+         * @param refresh      手势是否应该触发刷新
+         */
+        Scenario(String name, float startY, float endY, long moveDuration, long holdDuration, boolean refresh)
+        {
+            mName = name;
+            mStartY = startY;
+            mEndY = endY;
+            mMoveDuration = moveDuration;
+            mHoldDuration = holdDuration;
+            mRefresh = refresh;
+        }
+
+        /**
+         * 从FooterView方向拖动
+         *
+         * @return
+         */
+        Scenario setFromFooter()
+        {
+            mFromFooter = true;
+            return this;
+        }
+
+        /**
+         * 停止刷新的时候显示刷新结果
+         *
+         * @return
+         */
+        Scenario setShowRefreshResult()
+        {
+            mShowRefreshResult = true;
+            return this;
+        }
+
+        String getName()
+        {
+            return mName;
+        }
+
+        boolean isRefresh()
+        {
+            return mRefresh;
+        }
+
+        boolean isFromFooter()
+        {
+            return mFromFooter;
+        }
+
+        boolean isShowRefreshResult()
+        {
+            return mShowRefreshResult;
+        }
+
+        /**
+         * 生成手势记录
+         *
+         * @return
+         * @throws IOException
+         */
+        byte[] createTrace() throws IOException
+        {
+            return GestureTraces.drag(X, mStartY, mEndY, mMoveDuration, mHoldDuration);
+        }
+
+        @Override
+        public String toString()
+        {
+            return mName;
+        }
+    }
+}
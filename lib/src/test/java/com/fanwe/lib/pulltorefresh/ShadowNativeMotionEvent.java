@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.graphics.Matrix;
+import android.view.MotionEvent;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+import java.util.ArrayList;
+
+/**
+ * 用Java实现MotionEvent的native方法，事件的属性保存在这里，MotionEvent本身的Java代码（obtain，addBatch，历史触摸点，
+ * offsetLocation，ViewGroup分发时的坐标变换等）都是真实的代码<br>
+ * Robolectric默认的MotionEvent只支持一个触摸点和少数几个属性，没有历史触摸点，不能重放{@link GestureReplayer}的手势；
+ * 这里只实现重放，记录和分发触摸事件用到的native方法，只保存x，y坐标，没有实现的native方法返回默认值；
+ * 读取属性的方法不分配对象，和设备上native实现一样
+ */
+@Implements(MotionEvent.class)
+public class ShadowNativeMotionEvent
+{
+    private static final int HISTORY_CURRENT = Integer.MIN_VALUE;
+    private static final int MAX_POINTER_COUNT = 16;
+
+    /**
+     * 索引为native指针减1
+     */
+    private static final ArrayList<NativeEvent> sEvents = new ArrayList<NativeEvent>();
+    private static final float[] sMatrixValues = new float[9];
+
+    private static final class NativeEvent
+    {
+        int source;
+        int action;
+        int flags;
+        float xOffset;
+        float yOffset;
+        long downTimeNanos;
+
+        int pointerCount;
+        final int[] pointerIds = new int[MAX_POINTER_COUNT];
+
+        int sampleCount;
+        long[] sampleTimes = new long[4];
+        /**
+         * 屏幕坐标，按采样，触摸点，x，y排列
+         */
+        float[] sampleValues = new float[4 * MAX_POINTER_COUNT * 2];
+
+        void ensureSampleCapacity(int count)
+        {
+            if (count > sampleTimes.length)
+            {
+                final int capacity = Math.max(count, sampleTimes.length * 2);
+                final long[] times = new long[capacity];
+                System.arraycopy(sampleTimes, 0, times, 0, sampleCount);
+                sampleTimes = times;
+                final float[] values = new float[capacity * MAX_POINTER_COUNT * 2];
+                System.arraycopy(sampleValues, 0, values, 0, sampleCount * MAX_POINTER_COUNT * 2);
+                sampleValues = values;
+            }
+        }
+
+        int getSampleIndex(int historyPos)
+        {
+            return historyPos == HISTORY_CURRENT ? sampleCount - 1 : historyPos;
+        }
+
+        int getValueIndex(int sample, int pointerIndex)
+        {
+            return (sample * MAX_POINTER_COUNT + pointerIndex) * 2;
+        }
+
+        void addSample(long eventTimeNanos, MotionEvent.PointerCoords[] pointerCoords)
+        {
+            ensureSampleCapacity(sampleCount + 1);
+            final int sample = sampleCount++;
+            sampleTimes[sample] = eventTimeNanos;
+            for (int p = 0; p < pointerCount; p++)
+            {
+                final int index = getValueIndex(sample, p);
+                sampleValues[index] = pointerCoords[p].x;
+                sampleValues[index + 1] = pointerCoords[p].y;
+            }
+        }
+
+        void copyFrom(NativeEvent other, boolean keepHistory)
+        {
+            source = other.source;
+            action = other.action;
+            flags = other.flags;
+            xOffset = other.xOffset;
+            yOffset = other.yOffset;
+            downTimeNanos = other.downTimeNanos;
+            pointerCount = other.pointerCount;
+            System.arraycopy(other.pointerIds, 0, pointerIds, 0, MAX_POINTER_COUNT);
+
+            final int first = keepHistory ? 0 : other.sampleCount - 1;
+            sampleCount = other.sampleCount - first;
+            ensureSampleCapacity(sampleCount);
+            System.arraycopy(other.sampleTimes, first, sampleTimes, 0, sampleCount);
+            final int size = MAX_POINTER_COUNT * 2;
+            System.arraycopy(other.sampleValues, first * size, sampleValues, 0, sampleCount * size);
+        }
+    }
+
+    private static NativeEvent get(long nativePtr)
+    {
+        return sEvents.get((int) nativePtr - 1);
+    }
+
+    private static long obtainNative(long nativePtr)
+    {
+        if (nativePtr != 0)
+        {
+            return nativePtr;
+        }
+        sEvents.add(new NativeEvent());
+        return sEvents.size();
+    }
+
+    @Implementation
+    public static long nativeInitialize(long nativePtr, int deviceId, int source, int action, int flags, int edgeFlags,
+                                        int metaState, int buttonState, float xOffset, float yOffset, float xPrecision, float yPrecision,
+                                        long downTimeNanos, long eventTimeNanos, int pointerCount,
+                                        MotionEvent.PointerProperties[] pointerProperties, MotionEvent.PointerCoords[] pointerCoords)
+    {
+        final long ptr = obtainNative(nativePtr);
+        final NativeEvent event = get(ptr);
+        event.source = source;
+        event.action = action;
+        event.flags = flags;
+        event.xOffset = xOffset;
+        event.yOffset = yOffset;
+        event.downTimeNanos = downTimeNanos;
+        event.pointerCount = pointerCount;
+        for (int p = 0; p < pointerCount; p++)
+        {
+            event.pointerIds[p] = pointerProperties[p].id;
+        }
+        event.sampleCount = 0;
+        event.addSample(eventTimeNanos, pointerCoords);
+        return ptr;
+    }
+
+    @Implementation
+    public static long nativeCopy(long destNativePtr, long sourceNativePtr, boolean keepHistory)
+    {
+        final long ptr = obtainNative(destNativePtr);
+        get(ptr).copyFrom(get(sourceNativePtr), keepHistory);
+        return ptr;
+    }
+
+    @Implementation
+    public static void nativeAddBatch(long nativePtr, long eventTimeNanos, MotionEvent.PointerCoords[] pointerCoords, int metaState)
+    {
+        get(nativePtr).addSample(eventTimeNanos, pointerCoords);
+    }
+
+    @Implementation
+    public static int nativeGetSource(long nativePtr)
+    {
+        return get(nativePtr).source;
+    }
+
+    @Implementation
+    public static int nativeGetAction(long nativePtr)
+    {
+        return get(nativePtr).action;
+    }
+
+    @Implementation
+    public static void nativeSetAction(long nativePtr, int action)
+    {
+        get(nativePtr).action = action;
+    }
+
+    @Implementation
+    public static int nativeGetFlags(long nativePtr)
+    {
+        return get(nativePtr).flags;
+    }
+
+    @Implementation
+    public static void nativeSetFlags(long nativePtr, int flags)
+    {
+        get(nativePtr).flags = flags;
+    }
+
+    @Implementation
+    public static void nativeOffsetLocation(long nativePtr, float deltaX, float deltaY)
+    {
+        final NativeEvent event = get(nativePtr);
+        event.xOffset += deltaX;
+        event.yOffset += deltaY;
+    }
+
+    @Implementation
+    public static long nativeGetDownTimeNanos(long nativePtr)
+    {
+        return get(nativePtr).downTimeNanos;
+    }
+
+    @Implementation
+    public static int nativeGetPointerCount(long nativePtr)
+    {
+        return get(nativePtr).pointerCount;
+    }
+
+    @Implementation
+    public static int nativeGetPointerId(long nativePtr, int pointerIndex)
+    {
+        return get(nativePtr).pointerIds[pointerIndex];
+    }
+
+    @Implementation
+    public static int nativeFindPointerIndex(long nativePtr, int pointerId)
+    {
+        final NativeEvent event = get(nativePtr);
+        for (int p = 0; p < event.pointerCount; p++)
+        {
+            if (event.pointerIds[p] == pointerId)
+            {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    @Implementation
+    public static int nativeGetHistorySize(long nativePtr)
+    {
+        return get(nativePtr).sampleCount - 1;
+    }
+
+    @Implementation
+    public static long nativeGetEventTimeNanos(long nativePtr, int historyPos)
+    {
+        final NativeEvent event = get(nativePtr);
+        return event.sampleTimes[event.getSampleIndex(historyPos)];
+    }
+
+    @Implementation
+    public static float nativeGetRawAxisValue(long nativePtr, int axis, int pointerIndex, int historyPos)
+    {
+        if (axis != MotionEvent.AXIS_X && axis != MotionEvent.AXIS_Y)
+        {
+            return 0;
+        }
+        final NativeEvent event = get(nativePtr);
+        return event.sampleValues[event.getValueIndex(event.getSampleIndex(historyPos), pointerIndex) + axis];
+    }
+
+    @Implementation
+    public static float nativeGetAxisValue(long nativePtr, int axis, int pointerIndex, int historyPos)
+    {
+        final float value = nativeGetRawAxisValue(nativePtr, axis, pointerIndex, historyPos);
+        if (axis == MotionEvent.AXIS_X)
+        {
+            return value + get(nativePtr).xOffset;
+        } else if (axis == MotionEvent.AXIS_Y)
+        {
+            return value + get(nativePtr).yOffset;
+        }
+        return value;
+    }
+
+    /**
+     * 和native实现一样，变换之后保持第一个触摸点的屏幕坐标不变，变化体现在偏移量上
+     */
+    @Implementation
+    public static void nativeTransform(long nativePtr, Matrix matrix)
+    {
+        final NativeEvent event = get(nativePtr);
+        final float[] m = sMatrixValues;
+        matrix.getValues(m);
+
+        final float oldXOffset = event.xOffset;
+        final float oldYOffset = event.yOffset;
+        final float rawX = event.sampleValues[0];
+        final float rawY = event.sampleValues[1];
+        event.xOffset = transformX(m, rawX + oldXOffset, rawY + oldYOffset) - rawX;
+        event.yOffset = transformY(m, rawX + oldXOffset, rawY + oldYOffset) - rawY;
+
+        for (int s = 0; s < event.sampleCount; s++)
+        {
+            for (int p = 0; p < event.pointerCount; p++)
+            {
+                final int index = event.getValueIndex(s, p);
+                final float x = event.sampleValues[index] + oldXOffset;
+                final float y = event.sampleValues[index + 1] + oldYOffset;
+                event.sampleValues[index] = transformX(m, x, y) - event.xOffset;
+                event.sampleValues[index + 1] = transformY(m, x, y) - event.yOffset;
+            }
+        }
+    }
+
+    private static float transformX(float[] m, float x, float y)
+    {
+        return m[Matrix.MSCALE_X] * x + m[Matrix.MSKEW_X] * y + m[Matrix.MTRANS_X];
+    }
+
+    private static float transformY(float[] m, float x, float y)
+    {
+        return m[Matrix.MSKEW_Y] * x + m[Matrix.MSCALE_Y] * y + m[Matrix.MTRANS_Y];
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+import java.util.ArrayList;
+
+/**
+ * 用Java实现VelocityTracker的native方法，配合{@link ShadowNativeMotionEvent}使用<br>
+ * 和设备上一样只使用MOVE事件（包括历史触摸点）的位置，对最近{@link #HORIZON}内的位置做最小二乘直线拟合得到速度；
+ * Robolectric默认的VelocityTracker只使用最后两个位置，并且计算的时候分配对象
+ */
+@Implements(VelocityTracker.class)
+public class ShadowNativeVelocityTracker
+{
+    /**
+     * 只使用最近这段时间内的位置（纳秒）
+     */
+    private static final long HORIZON = 100 * 1000000L;
+    /**
+     * 两个位置的时间间隔超过这个值的时候认为中间停止过，只使用后面的位置（纳秒）
+     */
+    private static final long ASSUME_POINTER_STOPPED_TIME = 40 * 1000000L;
+    private static final int HISTORY_SIZE = 20;
+    private static final int MAX_POINTER_ID = 31;
+
+    /**
+     * 索引为native指针减1
+     */
+    private static final ArrayList<NativeTracker> sTrackers = new ArrayList<NativeTracker>();
+
+    private static final class NativeTracker
+    {
+        /**
+         * 每个触摸点id的位置，环形保存
+         */
+        final long[][] times = new long[MAX_POINTER_ID + 1][HISTORY_SIZE];
+        final float[][] xs = new float[MAX_POINTER_ID + 1][HISTORY_SIZE];
+        final float[][] ys = new float[MAX_POINTER_ID + 1][HISTORY_SIZE];
+        final int[] counts = new int[MAX_POINTER_ID + 1];
+        final int[] heads = new int[MAX_POINTER_ID + 1];
+
+        final float[] xVelocities = new float[MAX_POINTER_ID + 1];
+        final float[] yVelocities = new float[MAX_POINTER_ID + 1];
+        /**
+         * 不指定触摸点id的时候使用的触摸点
+         */
+        int activeId = -1;
+
+        void clear()
+        {
+            activeId = -1;
+            for (int id = 0; id <= MAX_POINTER_ID; id++)
+            {
+                clear(id);
+                xVelocities[id] = 0;
+                yVelocities[id] = 0;
+            }
+        }
+
+        void clear(int id)
+        {
+            counts[id] = 0;
+            heads[id] = 0;
+        }
+
+        void add(int id, long time, float x, float y)
+        {
+            if (counts[id] > 0 && time - times[id][heads[id]] > ASSUME_POINTER_STOPPED_TIME)
+            {
+                clear(id);
+            }
+            final int head = counts[id] == 0 ? 0 : (heads[id] + 1) % HISTORY_SIZE;
+            times[id][head] = time;
+            xs[id][head] = x;
+            ys[id][head] = y;
+            heads[id] = head;
+            counts[id] = Math.min(counts[id] + 1, HISTORY_SIZE);
+        }
+
+        /**
+         * @return 每秒移动的像素
+         */
+        float fit(int id, float[][] values)
+        {
+            final int count = counts[id];
+            if (count < 2)
+            {
+                return 0;
+            }
+            final long newest = times[id][heads[id]];
+            double sumT = 0;
+            double sumV = 0;
+            double sumTT = 0;
+            double sumTV = 0;
+            int n = 0;
+            for (int i = 0; i < count; i++)
+            {
+                final int index = (heads[id] - i + HISTORY_SIZE) % HISTORY_SIZE;
+                final long age = newest - times[id][index];
+                if (age > HORIZON)
+                {
+                    break;
+                }
+                final double t = -age / 1e9;
+                final double v = values[id][index];
+                sumT += t;
+                sumV += v;
+                sumTT += t * t;
+                sumTV += t * v;
+                n++;
+            }
+            final double denominator = n * sumTT - sumT * sumT;
+            if (n < 2 || denominator == 0)
+            {
+                return 0;
+            }
+            return (float) ((n * sumTV - sumT * sumV) / denominator);
+        }
+    }
+
+    private static NativeTracker get(long ptr)
+    {
+        return sTrackers.get((int) ptr - 1);
+    }
+
+    @Implementation
+    public static long nativeInitialize(String strategy)
+    {
+        sTrackers.add(new NativeTracker());
+        return sTrackers.size();
+    }
+
+    @Implementation
+    public static void nativeDispose(long ptr)
+    {
+    }
+
+    @Implementation
+    public static void nativeClear(long ptr)
+    {
+        get(ptr).clear();
+    }
+
+    @Implementation
+    public static void nativeAddMovement(long ptr, MotionEvent event)
+    {
+        final NativeTracker tracker = get(ptr);
+        switch (event.getActionMasked())
+        {
+            case MotionEvent.ACTION_DOWN:
+                tracker.clear();
+                tracker.activeId = event.getPointerId(0);
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                tracker.clear(event.getPointerId(event.getActionIndex()));
+                break;
+            case MotionEvent.ACTION_MOVE:
+                break;
+            default:
+                // 抬起的时候位置和最后一个MOVE事件一样，不使用
+                return;
+        }
+
+        final int historySize = event.getHistorySize();
+        for (int h = 0; h < historySize; h++)
+        {
+            for (int p = 0; p < event.getPointerCount(); p++)
+            {
+                tracker.add(event.getPointerId(p), event.getHistoricalEventTime(h) * 1000000L,
+                        event.getHistoricalX(p, h), event.getHistoricalY(p, h));
+            }
+        }
+        for (int p = 0; p < event.getPointerCount(); p++)
+        {
+            tracker.add(event.getPointerId(p), event.getEventTime() * 1000000L, event.getX(p), event.getY(p));
+        }
+    }
+
+    @Implementation
+    public static void nativeComputeCurrentVelocity(long ptr, int units, float maxVelocity)
+    {
+        final NativeTracker tracker = get(ptr);
+        final float scale = units / 1000f;
+        for (int id = 0; id <= MAX_POINTER_ID; id++)
+        {
+            tracker.xVelocities[id] = clamp(tracker.fit(id, tracker.xs) * scale, maxVelocity);
+            tracker.yVelocities[id] = clamp(tracker.fit(id, tracker.ys) * scale, maxVelocity);
+        }
+    }
+
+    private static float clamp(float velocity, float maxVelocity)
+    {
+        return Math.max(-maxVelocity, Math.min(maxVelocity, velocity));
+    }
+
+    @Implementation
+    public static float nativeGetXVelocity(long ptr, int id)
+    {
+        final NativeTracker tracker = get(ptr);
+        final int pointerId = id < 0 ? tracker.activeId : id;
+        return pointerId < 0 ? 0 : tracker.xVelocities[pointerId];
+    }
+
+    @Implementation
+    public static float nativeGetYVelocity(long ptr, int id)
+    {
+        final NativeTracker tracker = get(ptr);
+        final int pointerId = id < 0 ? tracker.activeId : id;
+        return pointerId < 0 ? 0 : tracker.yVelocities[pointerId];
+    }
+
+    @Implementation
+    public static boolean nativeGetEstimator(long ptr, int id, VelocityTracker.Estimator outEstimator)
+    {
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.content.Context;
+import android.view.accessibility.AccessibilityManager;
+
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.HiddenApi;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowAccessibilityManager;
+
+/**
+ * 和设备上一样只创建一个AccessibilityManager<br>
+ * Robolectric默认每次调用{@link AccessibilityManager#getInstance(Context)}都会创建新的对象，
+ * View的offsetTopAndBottom，setVisibility等方法都会调用，统计分配的字节数的时候需要排除
+ */
+@Implements(AccessibilityManager.class)
+public class ShadowSingletonAccessibilityManager extends ShadowAccessibilityManager
+{
+    private static Context sApplication;
+    private static AccessibilityManager sInstance;
+
+    @HiddenApi
+    @Implementation
+    public static AccessibilityManager getInstance(Context context) throws Exception
+    {
+        // 每个测试的Application不同，换了Application重新创建
+        if (sInstance == null || sApplication != RuntimeEnvironment.application)
+        {
+            sInstance = ShadowAccessibilityManager.getInstance(context);
+            sApplication = RuntimeEnvironment.application;
+        }
+        return sInstance;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2017 zhengjun, fanwe (http://www.fanwe.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.fanwe.lib.pulltorefresh;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowChoreographer;
+
+/**
+ * 按固定帧间隔执行{@link Choreographer.FrameCallback}的Choreographer<br>
+ * Robolectric默认的Choreographer在调用的时候立即执行回调，帧时间和{@link SystemClock#uptimeMillis()}无关；
+ * 这里和设备上一样，回调在下一帧执行，帧时间是这一帧的时间，VerticalDragHelper按帧时间对触摸点重采样<br>
+ * 帧回调在{@link AllocationMeter}的区间中执行，模拟post和remove分配的对象不统计
+ */
+@Implements(Choreographer.class)
+public class ShadowVsyncChoreographer extends ShadowChoreographer
+{
+    /**
+     * 帧间隔（毫秒）
+     */
+    public static final long FRAME_INTERVAL = 16;
+
+    private final Handler mHandler = new Handler(Looper.myLooper());
+
+    /**
+     * 返回time之后（包括time）的第一帧的时间
+     *
+     * @param time 毫秒
+     * @return
+     */
+    public static long getNextFrameTime(long time)
+    {
+        return (time + FRAME_INTERVAL - 1) / FRAME_INTERVAL * FRAME_INTERVAL;
+    }
+
+    @Implementation
+    public void postFrameCallbackDelayed(final Choreographer.FrameCallback callback, long delayMillis)
+    {
+        AllocationMeter.pause();
+        try
+        {
+            final long frameTime = getNextFrameTime(SystemClock.uptimeMillis() + delayMillis);
+            mHandler.postAtTime(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    AllocationMeter.begin(AllocationMeter.REGION_FRAME_CALLBACK);
+                    try
+                    {
+                        callback.doFrame(frameTime * 1000000L);
+                    } finally
+                    {
+                        AllocationMeter.end();
+                    }
+                }
+            }, callback, frameTime);
+        } finally
+        {
+            AllocationMeter.resume();
+        }
+    }
+
+    @Implementation
+    public void removeFrameCallback(Choreographer.FrameCallback callback)
+    {
+        AllocationMeter.pause();
+        try
+        {
+            mHandler.removeCallbacksAndMessages(callback);
+        } finally
+        {
+            AllocationMeter.resume();
+        }
+    }
+
+    @Override
+    @Implementation
+    public void postCallbackDelayed(int callbackType, Runnable action, Object token, long delayMillis)
+    {
+        AllocationMeter.pause();
+        try
+        {
+            super.postCallbackDelayed(callbackType, action, token, delayMillis);
+        } finally
+        {
+            AllocationMeter.resume();
+        }
+    }
+
+    @Override
+    @Implementation
+    public void removeCallbacks(int callbackType, Runnable action, Object token)
+    {
+        AllocationMeter.pause();
+        try
+        {
+            super.removeCallbacks(callbackType, action, token);
+        } finally
+        {
+            AllocationMeter.resume();
+        }
+    }
+
+    @Implementation
+    public long getFrameTimeNanos()
+    {
+        return getNextFrameTime(SystemClock.uptimeMillis()) * 1000000L;
+    }
+}